@@ -2,8 +2,10 @@ package mg.sarobidy.ventecosmetique;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class VentecosmetiqueApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,11 @@
+package mg.sarobidy.ventecosmetique.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+// Les méthodes @Async utilisent l'exécuteur applicationTaskExecutor de Spring Boot,
+// qui passe en threads virtuels avec spring.threads.virtual.enabled=true.
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
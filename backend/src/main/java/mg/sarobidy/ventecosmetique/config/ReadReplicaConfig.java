@@ -0,0 +1,100 @@
+package mg.sarobidy.ventecosmetique.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+// Réplique en lecture, active seulement si app.datasource.replica.url est défini. Deux pools Hikari
+// (spring.datasource.hikari.* pour la base principale, app.datasource.replica.hikari.* pour la réplique)
+// derrière un LazyConnectionDataSourceProxy : la connexion physique n'est prise qu'à la première requête,
+// une fois la transaction marquée en lecture seule par @Transactional(readOnly = true), qui part alors sur
+// la réplique. Tout le reste (écritures, lectures hors transaction, Flyway) va sur la base principale.
+//
+// La réplique peut être en retard : une lecture qui doit voir une écriture qui vient d'avoir lieu
+// ne doit pas être en lecture seule. Pour la même raison, les transactions en lecture seule lisent le cache
+// de second niveau sans l'alimenter (CacheMode.GET) : une entité ou un résultat de requête lu sur une réplique
+// en retard, mis en cache juste après une écriture ou une éviction, y resterait jusqu'à expiration de la
+// région. Le cache n'est alors rempli que par les transactions d'écriture et les lectures hors transaction.
+@Configuration
+@ConditionalOnProperty("app.datasource.replica.url")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${app.datasource.replica.url}") String url,
+                                              @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String username,
+                                              @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        return DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(url).username(username).password(password).build();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 @Value("${app.datasource.replica.retry-after:30s}") Duration retryAfter,
+                                 MeterRegistry meterRegistry) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(new ReplicaFailoverDataSource(replica, primary, retryAfter, meterRegistry));
+        return proxy;
+    }
+
+    @Bean
+    public RepriseLectureSeuleAspect repriseLectureSeuleAspect(@Qualifier("replicaDataSource") HikariDataSource replica,
+                                                               MeterRegistry meterRegistry) {
+        return new RepriseLectureSeuleAspect(replica, meterRegistry);
+    }
+
+    // Appliqué avant l'initialisation de la fabrique, qui ne prend alors pas le dialecte par défaut
+    @Bean
+    public static BeanPostProcessor lectureSeuleJpaDialect() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof LocalContainerEntityManagerFactoryBean factory) {
+                    factory.setJpaDialect(new LectureSeuleJpaDialect());
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Réglé à chaque début de transaction : une session partagée par la requête (open-in-view) retrouve
+    // le mode normal dans la transaction d'écriture suivante
+    static class LectureSeuleJpaDialect extends HibernateJpaDialect {
+        @Override
+        public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+                throws PersistenceException, SQLException, TransactionException {
+            entityManager.unwrap(Session.class).setCacheMode(definition.isReadOnly() ? CacheMode.GET : CacheMode.NORMAL);
+            return super.beginTransaction(entityManager, definition);
+        }
+    }
+}
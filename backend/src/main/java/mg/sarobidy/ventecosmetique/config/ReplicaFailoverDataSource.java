@@ -0,0 +1,74 @@
+package mg.sarobidy.ventecosmetique.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+// Connexions de la réplique, avec repli sur la base principale quand la réplique ne fournit pas de connexion :
+// la lecture part sur la base principale et la réplique est écartée pendant retryAfter (métrique
+// app.datasource.replica.fallback pour chaque lecture repliée). Les connexions du pool coupées par un arrêt ou
+// un redémarrage de la réplique sont écartées par Hikari (validation à l'emprunt, keepalive-time) ; une
+// transaction en lecture seule interrompue en cours de route est rejouée par RepriseLectureSeuleAspect.
+public class ReplicaFailoverDataSource extends DelegatingDataSource {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaFailoverDataSource.class);
+
+    private final DataSource primary;
+    private final long retryAfterNanos;
+    private final Counter fallbacks;
+    private volatile long excludedUntil;
+    private volatile boolean excluded;
+
+    public ReplicaFailoverDataSource(DataSource replica, DataSource primary, Duration retryAfter, MeterRegistry meterRegistry) {
+        super(replica);
+        this.primary = primary;
+        this.retryAfterNanos = retryAfter.toNanos();
+        this.fallbacks = meterRegistry.counter("app.datasource.replica.fallback");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (excluded && System.nanoTime() - excludedUntil < 0) {
+            fallbacks.increment();
+            return primary.getConnection();
+        }
+        Connection connection;
+        try {
+            connection = super.getConnection();
+        } catch (SQLException e) {
+            excludedUntil = System.nanoTime() + retryAfterNanos;
+            if (!excluded) {
+                excluded = true;
+                log.warn("Réplique indisponible, lectures seules sur la base principale pendant {} s : {}",
+                        retryAfterNanos / 1_000_000_000, e.getMessage());
+            }
+            fallbacks.increment();
+            return primary.getConnection();
+        }
+        if (excluded) {
+            excluded = false;
+            log.info("Réplique de nouveau disponible, lectures seules rétablies sur la réplique");
+        }
+        return connection;
+    }
+
+    // Erreurs de connexion (classe 08) et arrêts du serveur (57P01 à 57P05). Hikari remplace alors la
+    // connexion par une connexion fermée : le rollback qui suit échoue sur "Connection is closed", sans
+    // SQLState, et c'est cette erreur qui remonte à la place de l'erreur d'origine
+    static boolean connexionPerdue(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && (sql.getSQLState() != null
+                    ? sql.getSQLState().startsWith("08") || sql.getSQLState().startsWith("57P")
+                    : "Connection is closed".equals(sql.getMessage()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
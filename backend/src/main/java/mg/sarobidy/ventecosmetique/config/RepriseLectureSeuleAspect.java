@@ -0,0 +1,54 @@
+package mg.sarobidy.ventecosmetique.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Une méthode @Transactional(readOnly = true) dont la connexion à la réplique est perdue en cours de route
+// (réplique arrêtée ou redémarrée) est rejouée une fois, dans une nouvelle transaction. Les autres connexions
+// inactives du pool de la réplique sont sans doute coupées aussi : elles sont évincées, la reprise en ouvre
+// une nouvelle, ou part sur la base principale si la réplique ne répond plus (ReplicaFailoverDataSource).
+// Métrique app.datasource.replica.retry pour chaque reprise.
+// Placé autour de l'intercepteur transactionnel : une méthode appelée dans une transaction déjà ouverte
+// n'est pas rejouée, l'erreur remonte à la méthode qui a ouvert la transaction.
+@Aspect
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class RepriseLectureSeuleAspect {
+    private static final Logger log = LoggerFactory.getLogger(RepriseLectureSeuleAspect.class);
+
+    private final HikariDataSource replica;
+    private final Counter reprises;
+
+    public RepriseLectureSeuleAspect(HikariDataSource replica, MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.reprises = meterRegistry.counter("app.datasource.replica.retry");
+    }
+
+    @Around("@annotation(transactional)")
+    public Object reprendre(ProceedingJoinPoint point, Transactional transactional) throws Throwable {
+        if (!transactional.readOnly() || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return point.proceed();
+        }
+        try {
+            return point.proceed();
+        } catch (RuntimeException e) {
+            if (!ReplicaFailoverDataSource.connexionPerdue(e)) throw e;
+            reprises.increment();
+            HikariPoolMXBean pool = replica.getHikariPoolMXBean();
+            if (pool != null) pool.softEvictConnections();
+            log.info("Connexion perdue pendant {}, lecture rejouée : {}", point.getSignature().toShortString(),
+                    e.getMessage());
+            return point.proceed();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package mg.sarobidy.ventecosmetique.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+// Durée des points d'entrée métier : commandes, panier et import (métrique app.service, étiquetée par
+// classe, méthode et exception). Les services appelés au chargement de chaque entité, comme
+// TarificationService.prixPromo depuis ProduitListener, ne sont pas mesurés : un timer par produit lu
+// coûterait plus que le calcul lui-même. Les contrôleurs sont couverts par http.server.requests et les
+// repositories par spring.data.repository.invocations, toutes deux fournies par Spring Boot.
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+    private final MeterRegistry meterRegistry;
+
+    public ServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * *(..)) && (within(mg.sarobidy.ventecosmetique.service.CommandeService)"
+            + " || within(mg.sarobidy.ventecosmetique.service.PanierService)"
+            + " || within(mg.sarobidy.ventecosmetique.service.ProduitImportService))")
+    public Object mesurer(ProceedingJoinPoint point) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return point.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("app.service")
+                    .tag("class", point.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", point.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+}
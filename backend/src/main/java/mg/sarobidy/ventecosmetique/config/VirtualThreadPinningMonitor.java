@@ -0,0 +1,57 @@
+package mg.sarobidy.ventecosmetique.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Signale les threads virtuels épinglés à leur thread porteur (bloc synchronized,
+// appel natif) au-delà d'un seuil, avec la pile d'appels fautive.
+@Component
+@ConditionalOnProperty(name = {"spring.threads.virtual.enabled", "app.virtual-threads.pinning-monitor.enabled"}, havingValue = "true")
+public class VirtualThreadPinningMonitor {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final int MAX_FRAMES = 12;
+
+    @Value("${app.virtual-threads.pinning-monitor.threshold:20ms}")
+    private Duration threshold;
+
+    private RecordingStream stream;
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::report);
+        stream.startAsync();
+        log.info("Surveillance de l'épinglage des threads virtuels active (seuil {})", threshold);
+    }
+
+    private void report(RecordedEvent event) {
+        String pile = "";
+        if (event.getStackTrace() != null) {
+            List<RecordedFrame> frames = event.getStackTrace().getFrames();
+            pile = frames.stream()
+                    .limit(MAX_FRAMES)
+                    .map(f -> f.getMethod().getType().getName() + "." + f.getMethod().getName() + ":" + f.getLineNumber())
+                    .collect(Collectors.joining("\n\tat ", "\n\tat ", ""));
+        }
+        log.warn("Thread virtuel épinglé pendant {} ms sur {}{}",
+                event.getDuration().toMillis(), event.getThread() != null ? event.getThread().getJavaName() : "?", pile);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) stream.close();
+    }
+}
@@ -1,14 +1,23 @@
 package mg.sarobidy.ventecosmetique.controller;
 
+import mg.sarobidy.ventecosmetique.dto.CommandeRecherche;
+import mg.sarobidy.ventecosmetique.dto.Dashboard;
+import mg.sarobidy.ventecosmetique.dto.ImportReport;
+import mg.sarobidy.ventecosmetique.dto.StockTimeline;
 import mg.sarobidy.ventecosmetique.entity.*;
 import mg.sarobidy.ventecosmetique.service.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -23,6 +32,39 @@ public class AdminController {
     @Autowired private AvisService avisService;
     @Autowired private PromotionService promotionService;
     @Autowired private StockService stockService;
+    @Autowired private ExportService exportService;
+    @Autowired private ProduitImportService produitImportService;
+    @Autowired private DashboardService dashboardService;
+    @Autowired private VenteRollupService venteRollupService;
+    @Autowired private StockTimelineService stockTimelineService;
+    @Autowired private PrevisionStockService previsionStockService;
+    @Autowired private CommandeRechercheService commandeRechercheService;
+    @Autowired private CacheStatistiquesService cacheStatistiquesService;
+
+    // Tableau de bord : indicateurs et série agrégés en base
+    @GetMapping("/dashboard")
+    public Dashboard getDashboard(@RequestParam(defaultValue = "month") String period,
+                                  @RequestParam(defaultValue = "day") String granularity) {
+        return dashboardService.getDashboard(period, granularity);
+    }
+
+    // Rapports de ventes lus dans les cumuls journaliers (groupBy : produit ou categorie)
+    @GetMapping("/reports/sales")
+    public List<VenteRollupService.LigneRapport> getSalesReport(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "produit") String groupBy) {
+        return switch (groupBy) {
+            case "produit" -> venteRollupService.rapportParProduit(from, to);
+            case "categorie" -> venteRollupService.rapportParCategorie(from, to);
+            default -> throw new IllegalArgumentException("Regroupement invalide : " + groupBy);
+        };
+    }
+
+    @PostMapping("/reports/rebuild")
+    public VenteRollupService.Backfill rebuildSalesRollups() {
+        return venteRollupService.rebuild();
+    }
 
     // Gestion des utilisateurs
     @GetMapping("/users")
@@ -82,6 +124,11 @@ public class AdminController {
         return produitService.saveProduct(produit, image);
     }
 
+    @PostMapping("/products/import")
+    public ImportReport importProducts(@RequestPart("file") MultipartFile file) throws IOException {
+        return produitImportService.importProducts(file.getInputStream());
+    }
+
     @PutMapping("/products/{id}")
     public Produit updateProduct(@PathVariable Long id, @RequestPart("produit") Produit produit, @RequestPart(value = "image", required = false) MultipartFile image) throws IOException {
         return produitService.updateProduct(id, produit, image);
@@ -119,6 +166,25 @@ public class AdminController {
         return commandeService.getAllOrders();
     }
 
+    // Recherche paginée (en-têtes de commande) ; sort : date, total, statut ou id
+    @GetMapping("/orders/search")
+    public CommandeRecherche searchOrders(
+            @RequestParam(required = false) Commande.Statut status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) Double minTotal,
+            @RequestParam(required = false) Double maxTotal,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "date") String sort,
+            @RequestParam(defaultValue = "desc") String direction) {
+        CommandeRechercheService.Filtres filtres = new CommandeRechercheService.Filtres(status,
+                from != null ? from.atStartOfDay() : null, to != null ? to.plusDays(1).atStartOfDay() : null,
+                email, minTotal, maxTotal);
+        return commandeRechercheService.rechercher(filtres, page, size, sort, "asc".equalsIgnoreCase(direction));
+    }
+
     @GetMapping("/orders/{id}")
     public Commande getOrder(@PathVariable Long id) {
         return commandeService.getOrderById(id);
@@ -155,6 +221,21 @@ public class AdminController {
         return promotionService.addPromotion(productId, reductionPourcentage, dateDebut, dateFin);
     }
 
+    // Corps : {cible: CATEGORIE|MARQUE|LISTE|PRODUIT, categorieId, marque, productIds: [...], reductionPourcentage, dateDebut, dateFin}
+    @PostMapping("/promotions/bulk")
+    public Promotion addBulkPromotion(@RequestBody Map<String, Object> body) {
+        Promotion.Cible cible = Promotion.Cible.valueOf(body.get("cible").toString().toUpperCase());
+        Long categorieId = body.get("categorieId") != null ? Long.valueOf(body.get("categorieId").toString()) : null;
+        String marque = body.get("marque") != null ? body.get("marque").toString() : null;
+        List<Long> productIds = body.get("productIds") instanceof List<?> ids
+                ? ids.stream().map(id -> Long.valueOf(id.toString())).toList()
+                : null;
+        double reductionPourcentage = Double.parseDouble(body.get("reductionPourcentage").toString());
+        LocalDateTime dateDebut = LocalDateTime.parse(body.get("dateDebut").toString());
+        LocalDateTime dateFin = LocalDateTime.parse(body.get("dateFin").toString());
+        return promotionService.addBulkPromotion(cible, categorieId, marque, productIds, reductionPourcentage, dateDebut, dateFin);
+    }
+
     @DeleteMapping("/promotions/{id}")
     public void deletePromotion(@PathVariable Long id) {
         promotionService.deletePromotion(id);
@@ -171,6 +252,17 @@ public class AdminController {
         return stockService.getLowStockAlerts();
     }
 
+    // Prévisions de réapprovisionnement (calcul nocturne) ; reorderOnly : produits sous leur point de commande
+    @GetMapping("/stocks/forecast")
+    public List<PrevisionStockService.Prevision> getStockForecast(@RequestParam(defaultValue = "false") boolean reorderOnly) {
+        return previsionStockService.getPrevisions(reorderOnly);
+    }
+
+    @PostMapping("/stocks/forecast/run")
+    public PrevisionStockService.Calcul runStockForecast() {
+        return previsionStockService.calculer();
+    }
+
     @PutMapping("/stocks/{productId}")
     public Stock updateStock(@PathVariable Long productId, @RequestBody Map<String, Object> body) {
         int quantity = Integer.parseInt(body.get("quantity").toString());
@@ -182,4 +274,52 @@ public class AdminController {
     public List<HistoriqueStock> getHistoriqueStock() {
         return stockService.getHistoriqueStocks();
     }
-}
\ No newline at end of file
+
+    // Taux de succès du cache de second niveau, par région ; activees à false sans statistiques Hibernate
+    @GetMapping("/cache/regions")
+    public CacheStatistiquesService.Statistiques getCacheRegions() {
+        return cacheStatistiquesService.getStatistiques();
+    }
+
+    // Évolution du stock d'un produit, agrégée par intervalle (resolution : hour, day, week, month)
+    @GetMapping("/products/{id}/stock-timeline")
+    public StockTimeline getStockTimeline(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String resolution) {
+        LocalDate fin = to != null ? to : LocalDate.now();
+        LocalDate debut = from != null ? from : fin.minusYears(1);
+        return stockTimelineService.getTimeline(id, debut.atStartOfDay(), fin.plusDays(1).atStartOfDay(), resolution);
+    }
+
+    // Exports CSV (lecture en flux, sans chargement complet en mémoire)
+    @GetMapping("/export/orders.csv")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return csvResponse("commandes", gzip, out -> exportService.exportOrders(from, to, gzip, out));
+    }
+
+    @GetMapping("/export/historique-stock.csv")
+    public ResponseEntity<StreamingResponseBody> exportHistoriqueStock(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return csvResponse("historique-stock", gzip, out -> exportService.exportHistoriqueStock(from, to, gzip, out));
+    }
+
+    @GetMapping("/export/users.csv")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "false") boolean gzip) {
+        return csvResponse("utilisateurs", gzip, out -> exportService.exportUsers(gzip, out));
+    }
+
+    private ResponseEntity<StreamingResponseBody> csvResponse(String name, boolean gzip, StreamingResponseBody body) {
+        String fileName = name + (gzip ? ".csv.gz" : ".csv");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.parseMediaType("text/csv; charset=UTF-8"))
+                .body(body);
+    }
+}
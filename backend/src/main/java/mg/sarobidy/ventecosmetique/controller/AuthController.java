@@ -4,21 +4,27 @@ import jakarta.transaction.Transactional;
 import mg.sarobidy.ventecosmetique.entity.User;
 import mg.sarobidy.ventecosmetique.entity.VerificationCode;
 import mg.sarobidy.ventecosmetique.repository.UserRepository;
-import mg.sarobidy.ventecosmetique.repository.VerificationCodeRepository;
+import mg.sarobidy.ventecosmetique.security.TokenService;
 import mg.sarobidy.ventecosmetique.service.EmailService;
+import mg.sarobidy.ventecosmetique.service.OtpStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDateTime;
+import java.security.SecureRandom;
+import java.time.Duration;
 import java.util.Map;
-import java.util.Random;
 
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
+    private static final Logger log = LoggerFactory.getLogger(AuthController.class);
+    private static final Duration OTP_VALIDITE = Duration.ofMinutes(5);
+    private static final SecureRandom RANDOM = new SecureRandom();
 
     @Autowired
     private UserRepository userRepository;
@@ -30,11 +36,14 @@ public class AuthController {
     private EmailService emailService;
 
     @Autowired
-    private VerificationCodeRepository verificationCodeRepository;
+    private OtpStore otpStore;
+
+    @Autowired
+    private TokenService tokenService;
 
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody User loginRequest) {
-        System.out.println("Tentative de connexion avec email: " + loginRequest.getEmail());
+        log.debug("Tentative de connexion avec email : {}", loginRequest.getEmail());
         try {
             User user = userRepository.findByEmail(loginRequest.getEmail())
                     .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
@@ -42,34 +51,30 @@ public class AuthController {
             if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
                 throw new RuntimeException("Mot de passe incorrect");
             }
+            if (user.isBlocked()) {
+                throw new RuntimeException("Compte bloqué");
+            }
 
-            userRepository.save(user);
-            System.out.println("Connexion réussie pour: " + user.getEmail());
+            log.info("Connexion réussie pour {}", user.getEmail());
 
-            return ResponseEntity.ok(Map.of("user", user, "message", "Connexion réussie"));
+            return ResponseEntity.ok(Map.of("user", user, "token", tokenService.createToken(user.getId()),
+                    "message", "Connexion réussie"));
         } catch (Exception e) {
-            System.out.println("Échec de la connexion: " + e.getMessage());
+            log.warn("Échec de la connexion pour {} : {}", loginRequest.getEmail(), e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", "Échec de la connexion : " + e.getMessage()));
         }
     }
 
     @PostMapping("/register")
-    @Transactional
     public ResponseEntity<?> register(@RequestBody User registerRequest) {
         if (userRepository.findByEmail(registerRequest.getEmail()).isPresent()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", "Cet email est déjà utilisé."));
         }
 
-        verificationCodeRepository.deleteByEmail(registerRequest.getEmail());
-        String otp = String.format("%06d", new Random().nextInt(999999));
-
-        VerificationCode verificationCode = new VerificationCode();
-        verificationCode.setEmail(registerRequest.getEmail());
-        verificationCode.setCode(otp);
-        verificationCode.setExpirationDate(LocalDateTime.now().plusMinutes(5));
-        verificationCodeRepository.save(verificationCode);
+        String otp = generateOtp();
+        otpStore.save(VerificationCode.Motif.INSCRIPTION, registerRequest.getEmail(), otp, OTP_VALIDITE);
 
         emailService.sendEmail(registerRequest.getEmail(), "Confirmation d'inscription", "Votre code OTP est : " + otp);
         return ResponseEntity.ok(Map.of("message", "OTP envoyé pour confirmation", "email", registerRequest.getEmail()));
@@ -82,11 +87,9 @@ public class AuthController {
         String code = (String) request.get("code");
         Map<String, Object> userData = (Map<String, Object>) request.get("user");
 
-        VerificationCode verify = verificationCodeRepository.findVerificationCodeByCodeAndEmail(code, email)
-                .orElseThrow(() -> new RuntimeException("Code invalide"));
-
-        if (verify.getExpirationDate().isBefore(LocalDateTime.now())) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Code invalide ou expiré");
+        OtpStore.Verification verification = otpStore.verify(VerificationCode.Motif.INSCRIPTION, email, code);
+        if (verification != OtpStore.Verification.VALIDE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", otpErrorMessage(verification)));
         }
 
         User user = new User();
@@ -100,21 +103,19 @@ public class AuthController {
         user.setCountry((String) userData.get("pays"));
 
         User savedUser = userRepository.save(user);
-        verificationCodeRepository.delete(verify);
         emailService.sendWelcomeEmail(email, user.getFirstName());
-        return ResponseEntity.ok(savedUser);
+        return ResponseEntity.ok(Map.of("user", savedUser, "token", tokenService.createToken(savedUser.getId())));
     }
 
     @PostMapping("/reset-password/request")
     public ResponseEntity<?> requestResetPassword(@RequestBody Map<String, String> request) {
         String email = request.get("email");
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+        if (userRepository.findByEmail(email).isEmpty()) {
+            throw new RuntimeException("Utilisateur non trouvé");
+        }
 
-        String otp = String.format("%06d", new Random().nextInt(999999));
-        user.setResetPassword(otp);
-        user.setExpirationDatePassword(LocalDateTime.now().plusMinutes(5));
-        userRepository.save(user);
+        String otp = generateOtp();
+        otpStore.save(VerificationCode.Motif.REINITIALISATION, email, otp, OTP_VALIDITE);
 
         emailService.sendEmail(email, "Réinitialisation de mot de passe", "Votre code OTP est : " + otp);
         return ResponseEntity.ok("OTP envoyé pour réinitialisation.");
@@ -126,16 +127,14 @@ public class AuthController {
         String code = request.get("resetPassword");
         String newPassword = request.get("motDePasse");
 
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
-
-        if (!code.equals(user.getResetPassword()) || user.getExpirationDatePassword().isBefore(LocalDateTime.now())) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Code OTP invalide ou expiré");
+        OtpStore.Verification verification = otpStore.verify(VerificationCode.Motif.REINITIALISATION, email, code);
+        if (verification != OtpStore.Verification.VALIDE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(otpErrorMessage(verification));
         }
 
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
         user.setPassword(passwordEncoder.encode(newPassword));
-        user.setResetPassword(null);
-        user.setExpirationDatePassword(null);
         userRepository.save(user);
 
         return ResponseEntity.ok("Mot de passe réinitialisé avec succès.");
@@ -154,4 +153,14 @@ public class AuthController {
                     .body("Erreur lors de la déconnexion : " + e.getMessage());
         }
     }
+
+    private String generateOtp() {
+        return String.format("%06d", RANDOM.nextInt(1_000_000));
+    }
+
+    private String otpErrorMessage(OtpStore.Verification verification) {
+        return verification == OtpStore.Verification.BLOQUE
+                ? "Trop de tentatives, veuillez demander un nouveau code"
+                : "Code invalide ou expiré";
+    }
 }
\ No newline at end of file
@@ -1,9 +1,15 @@
 package mg.sarobidy.ventecosmetique.controller;
 
+import mg.sarobidy.ventecosmetique.dto.PromotionActive;
 import mg.sarobidy.ventecosmetique.entity.*;
+import mg.sarobidy.ventecosmetique.security.AuthenticatedUser;
 import mg.sarobidy.ventecosmetique.service.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -18,14 +24,34 @@ public class ClientController {
     @Autowired private FavoriService favoriService;
     @Autowired private CommandeService commandeService;
     @Autowired private AvisService avisService;
-    @Autowired private PromotionService promotionService;
+    @Autowired private PromotionVitrineService promotionVitrineService;
     @Autowired private UserService userService;
     @Autowired private EmailService emailService;
+    @Autowired private TendanceService tendanceService;
+    @Autowired private CoAchatService coAchatService;
+    @Autowired private CatalogueInstantaneService catalogueInstantaneService;
 
-    // Gestion des produits
+    // Gestion des produits : JSON déjà sérialisé et compressé selon Accept-Encoding ; If-None-Match
+    // sur l'ETag renvoie 304 sans corps
     @GetMapping("/products")
-    public List<Produit> getProducts() {
-        return produitService.getAllProducts();
+    public ResponseEntity<byte[]> getProducts(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CatalogueInstantaneService.Variante variante = catalogueInstantaneService.getProduits(acceptEncoding);
+        ResponseEntity.BodyBuilder reponse = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(variante.etag())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (variante.encodage() != null) reponse.header(HttpHeaders.CONTENT_ENCODING, variante.encodage());
+        return reponse.body(variante.contenu());
+    }
+
+    // Meilleures ventes (critere=ventes) ou tendances (ventes et ajouts au panier), servies depuis la mémoire
+    @GetMapping("/products/trending")
+    public List<Produit> getTrendingProducts(@RequestParam(defaultValue = "tendance") String critere,
+                                             @RequestParam(required = false) Long categorieId,
+                                             @RequestParam(defaultValue = "10") int limit) {
+        return tendanceService.getClassement(TendanceService.Critere.valueOf(critere.toUpperCase()), categorieId,
+                Math.min(Math.max(limit, 1), 50));
     }
 
     @GetMapping("/products/{id}")
@@ -33,6 +59,12 @@ public class ClientController {
         return produitService.getProductById(id);
     }
 
+    // Souvent achetés ensemble, depuis l'index de co-achat en mémoire
+    @GetMapping("/products/{id}/related")
+    public List<Produit> getRelatedProducts(@PathVariable Long id, @RequestParam(defaultValue = "4") int limit) {
+        return coAchatService.getProduitsAssocies(id, Math.min(Math.max(limit, 1), 10));
+    }
+
     // Gestion des catégories
     @GetMapping("/categories")
     public List<Categorie> getCategories() {
@@ -40,76 +72,99 @@ public class ClientController {
     }
 
     @GetMapping("/cart")
-    public Panier getCart(@RequestParam("userId") Long userId) {
-        return panierService.getCartByUserId(userId);
+    public Panier getCart(@AuthenticationPrincipal AuthenticatedUser user,
+                          @RequestParam(value = "userId", required = false) Long userId) {
+        return panierService.getCartByUserId(resolveUserId(user, userId));
+    }
+
+    // Totaux maintenus côté serveur, sans charger les lignes du panier
+    @GetMapping("/cart/totals")
+    public Map<String, Object> getCartTotals(@AuthenticationPrincipal AuthenticatedUser user,
+                                             @RequestParam(value = "userId", required = false) Long userId) {
+        Panier panier = panierService.getCartByUserId(resolveUserId(user, userId));
+        return Map.of(
+                "sousTotal", panier.getSousTotal(),
+                "remise", panier.getRemise(),
+                "total", panier.getTotal(),
+                "nombreArticles", panier.getNombreArticles());
     }
 
     @PostMapping("/cart/add")
-    public Panier addToCart(@RequestBody Map<String, Object> body) {
-        Long userId = Long.valueOf(body.get("userId").toString());
+    public Panier addToCart(@AuthenticationPrincipal AuthenticatedUser user, @RequestBody Map<String, Object> body) {
+        Long userId = resolveUserId(user, body.get("userId") != null ? Long.valueOf(body.get("userId").toString()) : null);
         Long productId = Long.valueOf(body.get("productId").toString());
         int quantity = Integer.parseInt(body.get("quantity").toString());
         return panierService.addToCart(userId, productId, quantity);
     }
 
     @PutMapping("/cart/update/{itemId}")
-    public void updateCartItem(@PathVariable Long itemId, @RequestBody Map<String, Integer> body) {
-        panierService.updateCartItem(itemId, body.get("quantity"));
+    public void updateCartItem(@AuthenticationPrincipal AuthenticatedUser user, @PathVariable Long itemId,
+                               @RequestBody Map<String, Integer> body) {
+        panierService.updateCartItem(user.id(), itemId, body.get("quantity"));
     }
 
     @DeleteMapping("/cart/remove/{itemId}")
-    public void removeFromCart(@PathVariable Long itemId) {
-        panierService.removeFromCart(itemId);
+    public void removeFromCart(@AuthenticationPrincipal AuthenticatedUser user, @PathVariable Long itemId) {
+        panierService.removeFromCart(user.id(), itemId);
     }
 
     @DeleteMapping("/cart/clear")
-    public void clearCart(@RequestParam("userId") Long userId) {
-        panierService.clearCart(userId);
+    public void clearCart(@AuthenticationPrincipal AuthenticatedUser user,
+                          @RequestParam(value = "userId", required = false) Long userId) {
+        panierService.clearCart(resolveUserId(user, userId));
     }
 
     // Gestion des favoris
     @GetMapping("/favorites")
-    public List<Favori> getFavorites(@RequestParam("userId") Long userId) {
-        return favoriService.getFavoritesByUserId(userId);
+    public List<Favori> getFavorites(@AuthenticationPrincipal AuthenticatedUser user,
+                                     @RequestParam(value = "userId", required = false) Long userId) {
+        return favoriService.getFavoritesByUserId(resolveUserId(user, userId));
     }
 
     @PostMapping("/favorites/add")
-    public Favori addToFavorites(@RequestBody Map<String, Long> body) {
-        Long userId = body.get("userId");
+    public Favori addToFavorites(@AuthenticationPrincipal AuthenticatedUser user, @RequestBody Map<String, Long> body) {
+        Long userId = resolveUserId(user, body.get("userId"));
         Long productId = body.get("productId");
         return favoriService.addToFavorites(userId, productId);
     }
 
     @DeleteMapping("/favorites/remove/{productId}")
-    public void removeFromFavorites(@PathVariable Long productId, @RequestParam("userId") Long userId) {
-        favoriService.removeFromFavorites(userId, productId);
+    public void removeFromFavorites(@AuthenticationPrincipal AuthenticatedUser user, @PathVariable Long productId,
+                                    @RequestParam(value = "userId", required = false) Long userId) {
+        favoriService.removeFromFavorites(resolveUserId(user, userId), productId);
     }
 
     // Gestion des commandes
     @PostMapping("/orders")
-    public Commande createOrder(@RequestParam("userId") Long userId) {
-        return commandeService.createOrder(userId);
+    public Commande createOrder(@AuthenticationPrincipal AuthenticatedUser user,
+                                @RequestParam(value = "userId", required = false) Long userId) {
+        return commandeService.createOrder(resolveUserId(user, userId));
     }
 
     @GetMapping("/orders")
-    public List<Commande> getOrders(@RequestParam("userId") Long userId) {
-        return commandeService.getOrdersByUserId(userId);
+    public List<Commande> getOrders(@AuthenticationPrincipal AuthenticatedUser user,
+                                    @RequestParam(value = "userId", required = false) Long userId) {
+        return commandeService.getOrdersByUserId(resolveUserId(user, userId));
     }
 
     @GetMapping("/orders/{id}")
-    public Commande getOrder(@PathVariable Long id) {
-        return commandeService.getOrderById(id);
+    public Commande getOrder(@AuthenticationPrincipal AuthenticatedUser user, @PathVariable Long id) {
+        Commande commande = commandeService.getOrderById(id);
+        resolveUserId(user, commande.getUtilisateur() != null ? commande.getUtilisateur().getId() : null);
+        return commande;
     }
 
     @PostMapping("/orders/{id}/cancel")
-    public void cancelOrder(@PathVariable Long id) {
+    public void cancelOrder(@AuthenticationPrincipal AuthenticatedUser user, @PathVariable Long id) {
+        Commande commande = commandeService.getOrderById(id);
+        resolveUserId(user, commande.getUtilisateur() != null ? commande.getUtilisateur().getId() : null);
         commandeService.cancelOrder(id);
     }
 
     // Gestion des avis
     @PostMapping("/reviews")
-    public Avis addReview(@RequestBody Map<String, Object> body) {
-        Long userId = Long.valueOf(body.get("userId").toString());
+    public Avis addReview(@AuthenticationPrincipal AuthenticatedUser user, @RequestBody Map<String, Object> body) {
+        Long userId = resolveUserId(user, body.get("userId") != null ? Long.valueOf(body.get("userId").toString()) : null);
         Long productId = Long.valueOf(body.get("productId").toString());
         int note = Integer.parseInt(body.get("note").toString());
         String commentaire = body.get("commentaire").toString();
@@ -123,18 +178,26 @@ public class ClientController {
 
     // Gestion des promotions
     @GetMapping("/promotions")
-    public List<Promotion> getActivePromotions() {
-        return promotionService.getActivePromotions();
+    public List<PromotionActive> getActivePromotions() {
+        return promotionVitrineService.getActivePromotions();
     }
 
     // Gestion du profil utilisateur
     @GetMapping("/profile")
-    public User getProfile(@RequestParam("userId") Long userId) {
-        return userService.getUserById(userId);
+    public User getProfile(@AuthenticationPrincipal AuthenticatedUser user,
+                           @RequestParam(value = "userId", required = false) Long userId) {
+        return userService.getUserById(resolveUserId(user, userId));
     }
 
     @PostMapping("/contact")
     public void contact(@RequestBody Map<String, Object> body) {
         emailService.sendEmailContact((String) body.get("email"), (String) body.get("subject"), (String) body.get("message"));
     }
-}
\ No newline at end of file
+
+    // Le userId transmis par le client n'est accepté que s'il désigne l'utilisateur authentifié (ou pour un admin)
+    private Long resolveUserId(AuthenticatedUser user, Long requestedUserId) {
+        if (requestedUserId == null || requestedUserId.equals(user.id())) return user.id();
+        if (user.isAdmin()) return requestedUserId;
+        throw new AccessDeniedException("Accès refusé");
+    }
+}
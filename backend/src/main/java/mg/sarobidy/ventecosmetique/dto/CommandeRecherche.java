@@ -0,0 +1,14 @@
+package mg.sarobidy.ventecosmetique.dto;
+
+import mg.sarobidy.ventecosmetique.entity.Commande;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Page de résultats de la recherche de commandes : en-têtes seulement, sans les lignes.
+public record CommandeRecherche(List<EnTete> commandes, int page, int taille, long total) {
+
+    public record EnTete(Long id, LocalDateTime dateCommande, Commande.Statut statut, double total,
+                         Long utilisateurId, String email, String client, long nombreArticles) {
+    }
+}
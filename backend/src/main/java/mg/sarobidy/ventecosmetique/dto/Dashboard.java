@@ -0,0 +1,17 @@
+package mg.sarobidy.ventecosmetique.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+// Indicateurs du tableau de bord, agrégés en base : la taille ne dépend pas du nombre de commandes.
+public record Dashboard(BigDecimal ventesTotales, long commandes, long commandesEnAttente, long produitsActifs,
+                        long stocksBas, long utilisateurs, String granularite, List<Point> serie,
+                        List<ProduitPopulaire> produitsPopulaires) {
+
+    public record Point(LocalDate debut, BigDecimal chiffreAffaires, long commandes) {
+    }
+
+    public record ProduitPopulaire(Long id, String nom, int stock, BigDecimal prix, long quantiteVendue) {
+    }
+}
@@ -0,0 +1,9 @@
+package mg.sarobidy.ventecosmetique.dto;
+
+import java.util.List;
+
+public record ImportReport(int lignesLues, int crees, int misAJour, int nombreErreurs, List<LigneErreur> erreurs) {
+
+    public record LigneErreur(long ligne, String message) {
+    }
+}
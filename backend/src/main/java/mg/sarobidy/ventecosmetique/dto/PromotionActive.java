@@ -0,0 +1,19 @@
+package mg.sarobidy.ventecosmetique.dto;
+
+import mg.sarobidy.ventecosmetique.entity.Promotion;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Vue en lecture seule d'une promotion en cours, telle qu'affichée en vitrine. categorieId et marque
+// décrivent la cible des promotions de catégorie ou de marque ; produit n'est renseigné que pour une
+// promotion sur un produit.
+public record PromotionActive(Long id, Promotion.Cible cible, double reductionPourcentage,
+                              LocalDateTime dateDebut, LocalDateTime dateFin, Long categorieId, String marque,
+                              ProduitVitrine produit) {
+
+    public record ProduitVitrine(Long id, String nom, String marque, BigDecimal prix, BigDecimal prixOriginal,
+                                 BigDecimal prixPromo, String imagePath, int stock, Long categorieId,
+                                 Double noteMoyenne, long nombreAvis) {
+    }
+}
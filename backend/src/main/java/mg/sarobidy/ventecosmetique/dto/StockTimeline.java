@@ -0,0 +1,13 @@
+package mg.sarobidy.ventecosmetique.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Évolution du stock d'un produit regroupée par intervalle : un point par intervalle contenant au moins
+// un mouvement. niveauInitial est le dernier niveau connu avant le début de la période.
+public record StockTimeline(Long produitId, String resolution, LocalDateTime from, LocalDateTime to,
+                            Integer niveauInitial, List<Point> points) {
+
+    public record Point(LocalDateTime debut, int min, int max, int dernier, long mouvements) {
+    }
+}
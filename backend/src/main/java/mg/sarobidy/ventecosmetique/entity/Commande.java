@@ -9,7 +9,9 @@ import java.util.List;
 
 @Entity
 @Data
-@Table(name = "commandes")
+@Table(name = "commandes", indexes = {
+        @Index(name = "idx_commandes_statut_date", columnList = "statut, date_commande"),
+        @Index(name = "idx_commandes_utilisateur_date", columnList = "utilisateur_id, date_commande")})
 public class Commande {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -7,7 +7,8 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
-@Table(name = "historique_stocks")
+@Table(name = "historique_stocks",
+        indexes = @Index(name = "idx_historique_stocks_produit_date", columnList = "produit_id, date"))
 public class HistoriqueStock {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -21,4 +22,8 @@ public class HistoriqueStock {
     private int quantity;
     private LocalDateTime date;
 
+    // Niveau de stock après le mouvement (null sur les lignes antérieures, où quantity
+    // porte tantôt le niveau, tantôt la quantité déplacée)
+    private Integer stockApres;
+
 }
@@ -4,9 +4,13 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import lombok.Data;
 
+import java.math.BigDecimal;
+
 @Entity
 @Data
-@Table(name = "lignes_commande")
+@Table(name = "lignes_commande",
+        indexes = {@Index(name = "idx_lignes_commande_produit", columnList = "produit_id"),
+                @Index(name = "idx_lignes_commande_commande", columnList = "commande_id")})
 public class LigneCommande {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -22,4 +26,7 @@ public class LigneCommande {
     private Produit produit;
 
     private int quantite;
+
+    // Prix unitaire effectivement payé (promotion déduite), figé au passage de la commande
+    private BigDecimal prixUnitaire;
 }
\ No newline at end of file
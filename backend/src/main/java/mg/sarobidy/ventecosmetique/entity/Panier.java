@@ -1,9 +1,11 @@
 package mg.sarobidy.ventecosmetique.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.Data;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @Entity
@@ -21,4 +23,42 @@ public class Panier {
     @OneToMany(mappedBy = "panier", cascade = CascadeType.ALL)
     @JsonManagedReference
     private List<PanierItem> items;
-}
\ No newline at end of file
+
+    // Totaux tenus à jour par PanierService à chaque modification (en centimes, arithmétique exacte).
+    // null sur les paniers antérieurs : ils sont recalculés une fois à la première lecture.
+    @JsonIgnore
+    private Long sousTotalCentimes;
+    @JsonIgnore
+    private Long remiseCentimes;
+    private Integer nombreArticles;
+
+    public void appliquer(long sousTotal, long remise, int articles) {
+        sousTotalCentimes = (sousTotalCentimes != null ? sousTotalCentimes : 0) + sousTotal;
+        remiseCentimes = (remiseCentimes != null ? remiseCentimes : 0) + remise;
+        nombreArticles = (nombreArticles != null ? nombreArticles : 0) + articles;
+    }
+
+    public boolean totauxCalcules() {
+        return sousTotalCentimes != null && remiseCentimes != null && nombreArticles != null;
+    }
+
+    public BigDecimal getSousTotal() {
+        return centimes(sousTotalCentimes);
+    }
+
+    public BigDecimal getRemise() {
+        return centimes(remiseCentimes);
+    }
+
+    public BigDecimal getTotal() {
+        return centimes(totalCentimes());
+    }
+
+    public long totalCentimes() {
+        return (sousTotalCentimes != null ? sousTotalCentimes : 0) - (remiseCentimes != null ? remiseCentimes : 0);
+    }
+
+    private static BigDecimal centimes(Long valeur) {
+        return BigDecimal.valueOf(valeur != null ? valeur : 0, 2);
+    }
+}
@@ -22,4 +22,18 @@ public class PanierItem {
     private Produit produit;
 
     private int quantite;
-}
\ No newline at end of file
+
+    // Prix de base et prix après promotion au moment du dernier calcul, en centimes ;
+    // les totaux du panier en sont la somme pondérée par la quantité.
+    private Long prixUnitaireCentimes;
+    private Long prixEffectifCentimes;
+
+    public long sousTotalCentimes() {
+        return quantite * (prixUnitaireCentimes != null ? prixUnitaireCentimes : 0);
+    }
+
+    public long remiseCentimes() {
+        if (prixUnitaireCentimes == null || prixEffectifCentimes == null) return 0;
+        return quantite * (prixUnitaireCentimes - prixEffectifCentimes);
+    }
+}
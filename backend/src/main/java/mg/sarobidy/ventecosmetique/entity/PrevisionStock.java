@@ -0,0 +1,27 @@
+package mg.sarobidy.ventecosmetique.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Prévision de réapprovisionnement d'un produit, recalculée chaque nuit par PrevisionStockService.
+@Entity
+@Data
+@Table(name = "previsions_stock")
+public class PrevisionStock {
+    @Id
+    @Column(name = "produit_id")
+    private Long produitId;
+
+    private int stock;
+    // Demande moyenne par jour sur la fenêtre d'observation, et son écart-type
+    private double demandeJournaliere;
+    private double ecartType;
+    // null quand aucune demande n'a été observée
+    private Double joursCouverture;
+    private int stockSecurite;
+    private int pointCommande;
+    private int quantiteSuggeree;
+    private LocalDateTime dateCalcul;
+}
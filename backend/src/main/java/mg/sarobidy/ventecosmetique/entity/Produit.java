@@ -1,16 +1,24 @@
 package mg.sarobidy.ventecosmetique.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 import java.util.List;
 
 @Entity
 @Data
+// Chargée depuis le cache de second niveau, une association vers cette entité peut être un proxy Hibernate
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "produits")
 @Table(name = "produits")
+@EntityListeners(ProduitListener.class)
 public class Produit {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,6 +28,11 @@ public class Produit {
     private BigDecimal prix;
 
     private BigDecimal prixOriginal;
+
+    // Prix après la meilleure promotion active, null sans promotion (voir TarificationService)
+    @Transient
+    private BigDecimal prixPromo;
+
     private int stock;
     private String imagePath;
     private String description;
@@ -0,0 +1,21 @@
+package mg.sarobidy.ventecosmetique.entity;
+
+import jakarta.persistence.PostLoad;
+import mg.sarobidy.ventecosmetique.service.TarificationService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+// Renseigne le prix promotionnel (non persisté) à chaque chargement d'un produit.
+@Component
+public class ProduitListener {
+    // Résolu à la demande : l'EntityManagerFactory est créé avant les services
+    @Autowired private ObjectProvider<TarificationService> tarificationService;
+
+    @PostLoad
+    public void calculerPrixPromo(Produit produit) {
+        produit.setPrixPromo(tarificationService.getObject().prixPromo(produit, LocalDateTime.now()));
+    }
+}
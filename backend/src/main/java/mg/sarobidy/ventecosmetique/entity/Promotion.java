@@ -1,23 +1,61 @@
 package mg.sarobidy.ventecosmetique.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Data
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "promotions")
 @Table(name = "promotions")
 public class Promotion {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Cible de la promotion : un produit, une catégorie, une marque ou une liste de produits
+    // (promotion_produits). Les anciennes promotions sans cible portent sur leur produit.
+    @Enumerated(EnumType.STRING)
+    private Cible cible;
+
     @ManyToOne
     @JoinColumn(name = "produit_id")
     private Produit produit;
 
+    @ManyToOne
+    @JoinColumn(name = "categorie_id")
+    @JsonIgnoreProperties({"produits", "hibernateLazyInitializer", "handler"})
+    private Categorie categorie;
+
+    private String marque;
+
     private double reductionPourcentage;
     private LocalDateTime dateDebut;
     private LocalDateTime dateFin;
+
+    @Enumerated(EnumType.STRING)
+    private Statut statut;
+
+    public enum Statut {
+        PLANIFIEE, ACTIVE, TERMINEE
+    }
+
+    public enum Cible {
+        PRODUIT, CATEGORIE, MARQUE, LISTE
+    }
+
+    public Cible cibleEffective() {
+        return cible != null ? cible : Cible.PRODUIT;
+    }
+
+    public Statut statutA(LocalDateTime instant) {
+        if (!dateFin.isAfter(instant)) return Statut.TERMINEE;
+        return dateDebut.isAfter(instant) ? Statut.PLANIFIEE : Statut.ACTIVE;
+    }
 }
\ No newline at end of file
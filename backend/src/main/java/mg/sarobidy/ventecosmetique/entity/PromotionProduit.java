@@ -0,0 +1,27 @@
+package mg.sarobidy.ventecosmetique.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.io.Serializable;
+
+// Produits visés par une promotion de type LISTE, insérés en une seule requête INSERT ... SELECT.
+@Entity
+@Data
+@Table(name = "promotion_produits")
+@IdClass(PromotionProduit.Cle.class)
+public class PromotionProduit {
+    @Id
+    @Column(name = "promotion_id")
+    private Long promotionId;
+
+    @Id
+    @Column(name = "produit_id")
+    private Long produitId;
+
+    @Data
+    public static class Cle implements Serializable {
+        private Long promotionId;
+        private Long produitId;
+    }
+}
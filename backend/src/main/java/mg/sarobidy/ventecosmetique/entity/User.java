@@ -1,12 +1,12 @@
 package mg.sarobidy.ventecosmetique.entity;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 
-import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
@@ -28,6 +28,7 @@ public class User {
     private String email;
 
     @NotBlank(message = "Le mot de passe est requis")
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
 
     private String address;
@@ -37,7 +38,4 @@ public class User {
 
     private boolean blocked;
 
-    private String resetPassword;
-    private LocalDateTime expirationDatePassword;
-
 }
\ No newline at end of file
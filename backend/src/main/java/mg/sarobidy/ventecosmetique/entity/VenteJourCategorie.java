@@ -0,0 +1,33 @@
+package mg.sarobidy.ventecosmetique.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Ventes agrégées par jour et par catégorie ; categorieId = 0 regroupe les produits sans catégorie.
+@Entity
+@Data
+@Table(name = "ventes_jour_categorie")
+@IdClass(VenteJourCategorie.Cle.class)
+public class VenteJourCategorie {
+    @Id
+    private LocalDate jour;
+
+    @Id
+    @Column(name = "categorie_id")
+    private Long categorieId;
+
+    private long quantite;
+
+    @Column(precision = 14, scale = 2)
+    private BigDecimal chiffreAffaires;
+
+    @Data
+    public static class Cle implements Serializable {
+        private LocalDate jour;
+        private Long categorieId;
+    }
+}
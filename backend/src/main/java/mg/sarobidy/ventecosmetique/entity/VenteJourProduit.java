@@ -0,0 +1,33 @@
+package mg.sarobidy.ventecosmetique.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Ventes agrégées par jour et par produit (commandes non annulées), tenues à jour par VenteRollupService.
+@Entity
+@Data
+@Table(name = "ventes_jour_produit")
+@IdClass(VenteJourProduit.Cle.class)
+public class VenteJourProduit {
+    @Id
+    private LocalDate jour;
+
+    @Id
+    @Column(name = "produit_id")
+    private Long produitId;
+
+    private long quantite;
+
+    @Column(precision = 14, scale = 2)
+    private BigDecimal chiffreAffaires;
+
+    @Data
+    public static class Cle implements Serializable {
+        private LocalDate jour;
+        private Long produitId;
+    }
+}
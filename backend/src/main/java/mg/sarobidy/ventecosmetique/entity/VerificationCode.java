@@ -10,6 +10,8 @@ import java.time.LocalDateTime;
 @Data
 @Table(name = "verification_codes")
 public class VerificationCode {
+    public enum Motif { INSCRIPTION, REINITIALISATION }
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -19,5 +21,10 @@ public class VerificationCode {
     @NotBlank(message = "Le code est requis")
     private String code;
 
+    @Enumerated(EnumType.STRING)
+    private Motif motif;
+
+    private Integer tentatives;
+
     private LocalDateTime expirationDate;
-}
\ No newline at end of file
+}
@@ -0,0 +1,6 @@
+package mg.sarobidy.ventecosmetique.event;
+
+// Publié à chaque ajout au panier, traité après validation de la transaction : un ajout annulé
+// (stock insuffisant, rollback) ne compte pas dans les tendances.
+public record AjoutPanierEvent(Long produitId, int quantite) {
+}
@@ -0,0 +1,42 @@
+package mg.sarobidy.ventecosmetique.event;
+
+import java.util.Set;
+
+// Publié quand le prix affiché ou les données d'un ensemble de produits changent
+// (promotion qui démarre ou se termine, modification d'un produit...), pour que les
+// caches du catalogue n'invalident que les produits concernés.
+// promotionsModifiees signale qu'une promotion a été créée, supprimée ou a changé de statut ;
+// prixModifies qu'un prix de base, une catégorie ou une marque (promotions applicables) a changé ;
+// stockSeulement que seul le stock a bougé (réservations des paniers), ce qui tolère un léger retard d'affichage.
+public record CatalogueModifieEvent(Set<Long> produitIds, boolean promotionsModifiees, boolean prixModifies,
+                                    boolean stockSeulement) {
+
+    public static CatalogueModifieEvent of(Long produitId) {
+        return new CatalogueModifieEvent(Set.of(produitId), false, false, false);
+    }
+
+    public static CatalogueModifieEvent of(Set<Long> produitIds) {
+        return new CatalogueModifieEvent(Set.copyOf(produitIds), false, false, false);
+    }
+
+    public static CatalogueModifieEvent prix(Long produitId) {
+        return new CatalogueModifieEvent(Set.of(produitId), false, true, false);
+    }
+
+    public static CatalogueModifieEvent prix(Set<Long> produitIds) {
+        return new CatalogueModifieEvent(Set.copyOf(produitIds), false, true, false);
+    }
+
+    public static CatalogueModifieEvent promotions(Set<Long> produitIds) {
+        return new CatalogueModifieEvent(Set.copyOf(produitIds), true, false, false);
+    }
+
+    public static CatalogueModifieEvent stock(Long produitId) {
+        return new CatalogueModifieEvent(Set.of(produitId), false, false, true);
+    }
+
+    // Le prix effectif des produits a pu changer (stock et avis n'y touchent pas)
+    public boolean tarifsModifies() {
+        return promotionsModifiees || prixModifies;
+    }
+}
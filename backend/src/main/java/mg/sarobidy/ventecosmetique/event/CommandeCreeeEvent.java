@@ -0,0 +1,26 @@
+package mg.sarobidy.ventecosmetique.event;
+
+import mg.sarobidy.ventecosmetique.entity.Commande;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Publié à la création d'une commande, traité après validation de la transaction. Copie des données
+// utiles (email de confirmation, classements) : les écouteurs asynchrones ne touchent pas aux entités.
+public record CommandeCreeeEvent(Long commandeId, String email, String prenom, LocalDateTime dateCommande,
+                                 Commande.Statut statut, double total, List<Ligne> lignes) {
+
+    public record Ligne(Long produitId, String produitNom, int quantite, BigDecimal prixUnitaire) {
+    }
+
+    public static CommandeCreeeEvent of(Commande commande) {
+        List<Ligne> lignes = commande.getLignesCommande().stream()
+                .map(l -> new Ligne(l.getProduit().getId(), l.getProduit().getNom(), l.getQuantite(),
+                        l.getPrixUnitaire() != null ? l.getPrixUnitaire() : l.getProduit().getPrix()))
+                .toList();
+        return new CommandeCreeeEvent(commande.getId(), commande.getUtilisateur().getEmail(),
+                commande.getUtilisateur().getFirstName(), commande.getDateCommande(), commande.getStatut(),
+                commande.getTotal(), lignes);
+    }
+}
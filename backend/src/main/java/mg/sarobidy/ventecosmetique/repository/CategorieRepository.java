@@ -1,7 +1,18 @@
 package mg.sarobidy.ventecosmetique.repository;
 
+import jakarta.persistence.QueryHint;
 import mg.sarobidy.ventecosmetique.entity.Categorie;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
 
 public interface CategorieRepository extends JpaRepository<Categorie, Long> {
-}
\ No newline at end of file
+    // Liste servie par le cache de requêtes, invalidée par toute écriture sur la table categories
+    @Override
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "categories-listes")})
+    List<Categorie> findAll();
+}
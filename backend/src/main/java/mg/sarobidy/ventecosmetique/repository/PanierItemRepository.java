@@ -2,11 +2,28 @@ package mg.sarobidy.ventecosmetique.repository;
 
 import mg.sarobidy.ventecosmetique.entity.PanierItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PanierItemRepository extends JpaRepository<PanierItem, Long> {
     List<PanierItem> findByPanierId(Long panierId);
-}
\ No newline at end of file
+
+    Optional<PanierItem> findByPanierIdAndProduitId(Long panierId, Long produitId);
+
+    @Modifying
+    @Query("DELETE FROM PanierItem i WHERE i.panier.id = :panierId")
+    int deleteByPanierId(@Param("panierId") Long panierId);
+
+    @Query("SELECT DISTINCT i.panier.id FROM PanierItem i WHERE i.produit.id IN :produitIds")
+    List<Long> findPanierIdsByProduitIdIn(@Param("produitIds") Collection<Long> produitIds);
+
+    @Query("SELECT i FROM PanierItem i JOIN FETCH i.produit WHERE i.produit.id IN :produitIds")
+    List<PanierItem> findByProduitIdIn(@Param("produitIds") Collection<Long> produitIds);
+}
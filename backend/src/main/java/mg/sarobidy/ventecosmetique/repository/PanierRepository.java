@@ -1,10 +1,26 @@
 package mg.sarobidy.ventecosmetique.repository;
 
+import jakarta.persistence.LockModeType;
 import mg.sarobidy.ventecosmetique.entity.Panier;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface PanierRepository extends JpaRepository<Panier, Long> {
     Optional<Panier> findByUtilisateurId(Long utilisateurId);
-}
\ No newline at end of file
+
+    // Verrou sur la ligne du panier : les totaux sont modifiés par différence
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Panier p WHERE p.utilisateur.id = :utilisateurId")
+    Optional<Panier> findByUtilisateurIdForUpdate(@Param("utilisateurId") Long utilisateurId);
+
+    // Toujours dans l'ordre des ids pour éviter les interblocages
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Panier p WHERE p.id IN :ids ORDER BY p.id")
+    List<Panier> findAllForUpdate(@Param("ids") Collection<Long> ids);
+}
@@ -2,6 +2,8 @@ package mg.sarobidy.ventecosmetique.repository;
 
 import mg.sarobidy.ventecosmetique.entity.Produit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,4 +12,10 @@ import java.util.List;
 public interface ProduitRepository extends JpaRepository<Produit, Long> {
     List<Produit> findByCategorieId(Long categorieId);
     List<Produit> findByStockGreaterThan(int stock);
-}
\ No newline at end of file
+
+    @Query("SELECT p.id FROM Produit p WHERE p.categorie.id = :categorieId")
+    List<Long> findIdsByCategorieId(@Param("categorieId") Long categorieId);
+
+    @Query("SELECT p.id FROM Produit p WHERE lower(p.marque) = lower(:marque)")
+    List<Long> findIdsByMarque(@Param("marque") String marque);
+}
@@ -0,0 +1,30 @@
+package mg.sarobidy.ventecosmetique.repository;
+
+import mg.sarobidy.ventecosmetique.entity.PromotionProduit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PromotionProduitRepository extends JpaRepository<PromotionProduit, PromotionProduit.Cle> {
+    List<PromotionProduit> findByPromotionIdIn(Collection<Long> promotionIds);
+
+    @Query("SELECT pp.produitId FROM PromotionProduit pp WHERE pp.promotionId = :promotionId")
+    List<Long> findProduitIds(@Param("promotionId") Long promotionId);
+
+    // Matérialisation ensembliste : les ids inconnus sont ignorés par la jointure
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO promotion_produits (promotion_id, produit_id) " +
+            "SELECT :promotionId, p.id FROM produits p WHERE p.id IN (:produitIds)", nativeQuery = true)
+    int insertForProduits(@Param("promotionId") Long promotionId, @Param("produitIds") Collection<Long> produitIds);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PromotionProduit pp WHERE pp.promotionId = :promotionId")
+    int deleteByPromotion(@Param("promotionId") Long promotionId);
+}
@@ -1,14 +1,65 @@
 package mg.sarobidy.ventecosmetique.repository;
 
+import jakarta.persistence.Tuple;
 import mg.sarobidy.ventecosmetique.entity.Promotion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface PromotionRepository extends JpaRepository<Promotion, Long> {
     List<Promotion> findByProduitId(Long produitId);
     List<Promotion> findByDateFinAfter(LocalDateTime date);
-}
\ No newline at end of file
+
+    // Vitrine des promotions en cours : une seule requête, produit et note moyenne agrégée compris. Les
+    // promotions de catégorie, de marque ou de liste n'ont pas de produit : colonnes produit à null
+    @Query("SELECT p.id AS id, p.cible AS cible, p.reductionPourcentage AS reductionPourcentage, " +
+            "p.dateDebut AS dateDebut, p.dateFin AS dateFin, pc.id AS cibleCategorieId, p.marque AS cibleMarque, " +
+            "pr.id AS produitId, pr.nom AS nom, pr.marque AS marque, " +
+            "pr.prix AS prix, pr.prixOriginal AS prixOriginal, pr.imagePath AS imagePath, pr.stock AS stock, " +
+            "c.id AS categorieId, AVG(a.note) AS noteMoyenne, COUNT(a.id) AS nombreAvis " +
+            "FROM Promotion p LEFT JOIN p.categorie pc LEFT JOIN p.produit pr LEFT JOIN pr.categorie c " +
+            "LEFT JOIN pr.avis a " +
+            "WHERE p.dateDebut <= :instant AND p.dateFin > :instant " +
+            "GROUP BY p.id, p.cible, p.reductionPourcentage, p.dateDebut, p.dateFin, pc.id, p.marque, " +
+            "pr.id, pr.nom, pr.marque, " +
+            "pr.prix, pr.prixOriginal, pr.imagePath, pr.stock, c.id " +
+            "ORDER BY p.dateFin, p.id")
+    List<Tuple> findVitrineAt(@Param("instant") LocalDateTime instant);
+
+    // Promotions non terminées qui visent directement un produit, seul ou au sein d'une liste
+    @Query("SELECT p FROM Promotion p WHERE p.dateFin > :instant AND (" +
+            "(p.produit.id = :produitId AND (p.cible IS NULL OR p.cible = mg.sarobidy.ventecosmetique.entity.Promotion.Cible.PRODUIT)) " +
+            "OR (p.cible = mg.sarobidy.ventecosmetique.entity.Promotion.Cible.LISTE AND p.id IN " +
+            "(SELECT pp.promotionId FROM PromotionProduit pp WHERE pp.produitId = :produitId)))")
+    List<Promotion> findForProduit(@Param("produitId") Long produitId, @Param("instant") LocalDateTime instant);
+
+    @Query("SELECT p FROM Promotion p WHERE p.dateFin > :instant AND p.categorie.id = :categorieId " +
+            "AND p.cible = mg.sarobidy.ventecosmetique.entity.Promotion.Cible.CATEGORIE")
+    List<Promotion> findForCategorie(@Param("categorieId") Long categorieId, @Param("instant") LocalDateTime instant);
+
+    @Query("SELECT p FROM Promotion p WHERE p.dateFin > :instant AND LOWER(p.marque) = LOWER(TRIM(:marque)) " +
+            "AND p.cible = mg.sarobidy.ventecosmetique.entity.Promotion.Cible.MARQUE")
+    List<Promotion> findForMarque(@Param("marque") String marque, @Param("instant") LocalDateTime instant);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Promotion p SET p.statut = :statut WHERE p.id IN :ids")
+    int updateStatut(@Param("ids") Collection<Long> ids, @Param("statut") Promotion.Statut statut);
+
+    // Remet les statuts en cohérence avec l'horloge (démarrage, bornes manquées)
+    @Modifying
+    @Transactional
+    @Query("UPDATE Promotion p SET p.statut = CASE " +
+            "WHEN p.dateFin <= :instant THEN mg.sarobidy.ventecosmetique.entity.Promotion.Statut.TERMINEE " +
+            "WHEN p.dateDebut > :instant THEN mg.sarobidy.ventecosmetique.entity.Promotion.Statut.PLANIFIEE " +
+            "ELSE mg.sarobidy.ventecosmetique.entity.Promotion.Statut.ACTIVE END")
+    int reconcileStatuts(@Param("instant") LocalDateTime instant);
+}
@@ -1,11 +1,28 @@
 package mg.sarobidy.ventecosmetique.repository;
 
+import jakarta.persistence.LockModeType;
 import mg.sarobidy.ventecosmetique.entity.VerificationCode;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface VerificationCodeRepository extends JpaRepository<VerificationCode, Long> {
-    Optional<VerificationCode> findVerificationCodeByCodeAndEmail(String code, String email);
-    void deleteByEmail(String email);
-}
\ No newline at end of file
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM VerificationCode v WHERE v.email = :email AND v.motif = :motif")
+    Optional<VerificationCode> findForUpdate(@Param("email") String email, @Param("motif") VerificationCode.Motif motif);
+
+    @Modifying
+    void deleteByEmailAndMotif(String email, VerificationCode.Motif motif);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM verification_codes WHERE id IN " +
+            "(SELECT id FROM verification_codes WHERE expiration_date < :maintenant LIMIT :limite)", nativeQuery = true)
+    int deleteExpired(@Param("maintenant") LocalDateTime maintenant, @Param("limite") int limite);
+}
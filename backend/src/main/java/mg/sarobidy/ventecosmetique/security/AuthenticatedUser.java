@@ -0,0 +1,15 @@
+package mg.sarobidy.ventecosmetique.security;
+
+import mg.sarobidy.ventecosmetique.entity.User;
+
+// Principal porté par le SecurityContext : uniquement ce qui sert aux contrôles d'accès.
+public record AuthenticatedUser(Long id, String email, String role, boolean blocked) {
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.getRole(), user.isBlocked());
+    }
+
+    public boolean isAdmin() {
+        return "ADMIN".equals(role);
+    }
+}
@@ -0,0 +1,47 @@
+package mg.sarobidy.ventecosmetique.security;
+
+import mg.sarobidy.ventecosmetique.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Cache id -> principal pour éviter une requête sur users à chaque appel authentifié.
+// UserService invalide l'entrée dès qu'un blocage ou un changement de rôle a lieu ;
+// la durée de vie ne borne que les modifications faites hors de l'application.
+@Component
+public class PrincipalCache {
+    private static final int MAX_ENTREES = 10_000;
+
+    @Autowired private UserRepository userRepository;
+
+    @Value("${app.auth.principal-cache-ttl:5m}")
+    private Duration ttl;
+
+    private final Map<Long, Entree> cache = new ConcurrentHashMap<>();
+
+    private record Entree(AuthenticatedUser principal, long chargeA) {
+    }
+
+    public AuthenticatedUser get(Long userId) {
+        Entree entree = cache.get(userId);
+        if (entree != null && System.nanoTime() - entree.chargeA() < ttl.toNanos()) {
+            return entree.principal();
+        }
+        AuthenticatedUser principal = userRepository.findById(userId).map(AuthenticatedUser::from).orElse(null);
+        if (principal == null) {
+            cache.remove(userId);
+            return null;
+        }
+        if (cache.size() >= MAX_ENTREES) cache.clear();
+        cache.put(userId, new Entree(principal, System.nanoTime()));
+        return principal;
+    }
+
+    public void invalidate(Long userId) {
+        cache.remove(userId);
+    }
+}
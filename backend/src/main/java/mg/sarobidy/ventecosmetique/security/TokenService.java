@@ -0,0 +1,78 @@
+package mg.sarobidy.ventecosmetique.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+// Jetons d'accès compacts "base64url(userId|expiration).base64url(HMAC-SHA256)",
+// vérifiables localement sans accès à la base.
+@Service
+public class TokenService {
+    private static final Logger log = LoggerFactory.getLogger(TokenService.class);
+    private static final String ALGORITHME = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final Duration validite;
+
+    public TokenService(@Value("${app.auth.token-secret:}") String secret,
+                        @Value("${app.auth.token-validity:12h}") Duration validite) {
+        byte[] secretBytes;
+        if (secret == null || secret.isBlank()) {
+            // Sans secret configuré, les jetons ne survivent pas à un redémarrage
+            log.warn("app.auth.token-secret non défini : clé de signature aléatoire générée");
+            secretBytes = new byte[32];
+            new SecureRandom().nextBytes(secretBytes);
+        } else {
+            secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(secretBytes, ALGORITHME);
+        this.validite = validite;
+    }
+
+    public String createToken(Long userId) {
+        long expiration = Instant.now().plus(validite).getEpochSecond();
+        String payload = ENCODER.encodeToString((userId + "|" + expiration).getBytes(StandardCharsets.UTF_8));
+        return payload + "." + ENCODER.encodeToString(sign(payload));
+    }
+
+    // Renvoie l'id de l'utilisateur, ou null si le jeton est mal formé, falsifié ou expiré
+    public Long verifyToken(String token) {
+        int point = token.indexOf('.');
+        if (point <= 0 || point == token.length() - 1) return null;
+        String payload = token.substring(0, point);
+        try {
+            byte[] signature = DECODER.decode(token.substring(point + 1));
+            if (!MessageDigest.isEqual(sign(payload), signature)) return null;
+
+            String[] champs = new String(DECODER.decode(payload), StandardCharsets.UTF_8).split("\\|");
+            if (champs.length != 2) return null;
+            if (Long.parseLong(champs[1]) < Instant.now().getEpochSecond()) return null;
+            return Long.valueOf(champs[0]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHME);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Signature HMAC indisponible", e);
+        }
+    }
+}
@@ -3,9 +3,12 @@ package mg.sarobidy.ventecosmetique.service;
 import mg.sarobidy.ventecosmetique.entity.Avis;
 import mg.sarobidy.ventecosmetique.entity.Produit;
 import mg.sarobidy.ventecosmetique.entity.User;
+import mg.sarobidy.ventecosmetique.event.CatalogueModifieEvent;
 import mg.sarobidy.ventecosmetique.repository.AvisRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -13,11 +16,14 @@ import java.util.List;
 @Service
 public class AvisService {
     @Autowired private AvisRepository avisRepository;
+    @Autowired private ApplicationEventPublisher eventPublisher;
 
+    @Transactional(readOnly = true)
     public List<Avis> getAllReviews() {
         return avisRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public List<Avis> getReviewsByProductId(Long productId) {
         return avisRepository.findByProduitId(productId);
     }
@@ -31,10 +37,15 @@ public class AvisService {
         avis.setNote(note);
         avis.setCommentaire(commentaire);
         avis.setDateCreation(LocalDateTime.now());
-        return avisRepository.save(avis);
+        Avis saved = avisRepository.save(avis);
+        eventPublisher.publishEvent(CatalogueModifieEvent.of(productId));
+        return saved;
     }
 
     public void deleteReview(Long id) {
-        avisRepository.deleteById(id);
+        avisRepository.findById(id).ifPresent(avis -> {
+            avisRepository.delete(avis);
+            eventPublisher.publishEvent(CatalogueModifieEvent.of(avis.getProduit().getId()));
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package mg.sarobidy.ventecosmetique.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+// Compteurs du cache de second niveau par région (entités et requêtes), cumulés depuis le démarrage.
+// Les mêmes valeurs sont exportées en continu dans hibernate.second.level.cache.requests. Sans
+// hibernate.generate_statistics, Hibernate ne compte rien : l'état est renvoyé tel quel plutôt que des zéros.
+@Service
+public class CacheStatistiquesService {
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    public record Region(String nom, long succes, long echecs, long ajouts, double tauxSucces, long elementsEnMemoire) {
+    }
+
+    public record Statistiques(boolean activees, List<Region> regions) {
+    }
+
+    public Statistiques getStatistiques() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) return new Statistiques(false, List.of());
+        return new Statistiques(true, Arrays.stream(statistics.getSecondLevelCacheRegionNames()).sorted()
+                .map(nom -> {
+                    CacheRegionStatistics region = statistics.getCacheRegionStatistics(nom);
+                    if (region == null) return null;
+                    long requetes = region.getHitCount() + region.getMissCount();
+                    return new Region(nom, region.getHitCount(), region.getMissCount(), region.getPutCount(),
+                            requetes == 0 ? 0 : (double) region.getHitCount() / requetes, region.getElementCountInMemory());
+                })
+                .filter(Objects::nonNull)
+                .toList());
+    }
+}
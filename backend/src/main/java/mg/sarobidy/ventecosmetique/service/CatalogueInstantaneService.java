@@ -0,0 +1,190 @@
+package mg.sarobidy.ventecosmetique.service;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mg.sarobidy.ventecosmetique.event.CatalogueModifieEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+// Catalogue public (/api/client/products) sérialisé une fois en JSON, puis compressé en gzip et brotli :
+// les requêtes renvoient directement l'une des trois variantes, sans sérialisation ni compression.
+//
+// L'instantané est reconstruit quand le catalogue change : toute écriture sur les produits (administration,
+// import CSV, stocks mouvementés par les paniers, avis, promotions) publie CatalogueModifieEvent, pris en
+// compte après validation de la transaction. Prix, promotions et données produit reconstruisent au plus vite ;
+// les mouvements de stock des paniers, eux, sont regroupés : au plus une reconstruction par stock-interval,
+// le stock affiché peut donc retarder d'autant (l'ajout au panier revérifie le stock réel). max-age n'est qu'un
+// filet de sécurité pour les écritures faites hors de l'application. Pendant une reconstruction, les autres
+// requêtes reçoivent encore l'instantané précédent.
+@Service
+public class CatalogueInstantaneService {
+    private static final Logger log = LoggerFactory.getLogger(CatalogueInstantaneService.class);
+
+    @Autowired private ProduitService produitService;
+    @Autowired private ObjectMapper objectMapper;
+
+    @Value("${app.catalogue.snapshot.max-age:10m}")
+    private Duration maxAge;
+    @Value("${app.catalogue.snapshot.stock-interval:30s}")
+    private Duration stockInterval;
+    @Value("${app.catalogue.snapshot.brotli-quality:9}")
+    private int brotliQuality;
+
+    private final TransactionTemplate transactionTemplate;
+
+    // etag : empreinte du JSON, stable tant que le contenu ne change pas
+    private record Instantane(long version, long versionStock, long dateCreation, byte[] json, byte[] gzip, byte[] brotli,
+                              String etag) {
+    }
+
+    // Corps à renvoyer tel quel ; encodage null pour le JSON non compressé
+    public record Variante(byte[] contenu, String encodage, String etag) {
+    }
+
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong versionStock = new AtomicLong();
+    private final AtomicReference<Instantane> instantane = new AtomicReference<>();
+    private final ReentrantLock verrou = new ReentrantLock();
+
+    @Autowired
+    public CatalogueInstantaneService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public Variante getProduits(String acceptEncoding) {
+        Instantane courant = getInstantane();
+        if (courant.brotli() != null && accepte(acceptEncoding, "br")) {
+            return new Variante(courant.brotli(), "br", "\"" + courant.etag() + "-br\"");
+        }
+        if (accepte(acceptEncoding, "gzip")) {
+            return new Variante(courant.gzip(), "gzip", "\"" + courant.etag() + "-gzip\"");
+        }
+        return new Variante(courant.json(), null, "\"" + courant.etag() + "\"");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogueModifie(CatalogueModifieEvent event) {
+        (event.stockSeulement() ? versionStock : version).incrementAndGet();
+    }
+
+    private Instantane getInstantane() {
+        Instantane courant = instantane.get();
+        if (courant != null && aJour(courant)) return courant;
+        // Une seule reconstruction à la fois ; les requêtes concurrentes gardent l'instantané périmé
+        if (courant != null && !verrou.tryLock()) return courant;
+        if (courant == null) verrou.lock();
+        try {
+            courant = instantane.get();
+            if (courant == null || !aJour(courant)) {
+                courant = construire(courant);
+                instantane.set(courant);
+            }
+            return courant;
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    private boolean aJour(Instantane courant) {
+        long age = System.currentTimeMillis() - courant.dateCreation();
+        return courant.version() == version.get()
+                && (courant.versionStock() == versionStock.get() || age < stockInterval.toMillis())
+                && age < maxAge.toMillis();
+    }
+
+    private Instantane construire(Instantane precedent) {
+        long t0 = System.currentTimeMillis();
+        // Version lue avant les données : un événement pendant la lecture provoque une nouvelle reconstruction
+        long versionLue = version.get();
+        long versionStockLue = versionStock.get();
+        byte[] json = transactionTemplate.execute(status -> {
+            try {
+                return objectMapper.writeValueAsBytes(produitService.getAllProducts());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        // Contenu inchangé (reconstruction après max-age sans modification) : pas de nouvelle compression
+        if (precedent != null && Arrays.equals(json, precedent.json())) {
+            return new Instantane(versionLue, versionStockLue, t0, precedent.json(), precedent.gzip(), precedent.brotli(),
+                    precedent.etag());
+        }
+        byte[] gzip = gzip(json);
+        byte[] brotli = brotli(json);
+        CRC32 crc = new CRC32();
+        crc.update(json);
+        log.debug("Instantané du catalogue v{} : {} o JSON, {} o gzip, {} o brotli en {} ms", versionLue, json.length,
+                gzip.length, brotli != null ? brotli.length : 0, System.currentTimeMillis() - t0);
+        return new Instantane(versionLue, versionStockLue, t0, json, gzip, brotli,
+                Long.toHexString(crc.getValue()) + "-" + json.length);
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {{ def.setLevel(Deflater.BEST_COMPRESSION); }}) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // null si la bibliothèque native brotli n'est pas disponible sur cette plateforme : gzip seul
+    private byte[] brotli(byte[] json) {
+        if (!Brotli4jLoader.isAvailable()) return null;
+        try {
+            return Encoder.compress(json, new Encoder.Parameters().setQuality(brotliQuality));
+        } catch (IOException e) {
+            log.warn("Compression brotli du catalogue impossible : {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // Accept-Encoding : "gzip, deflate, br;q=0.8" ; un codage de qualité nulle est refusé, un codage cité
+    // explicitement l'emporte sur "*"
+    static boolean accepte(String acceptEncoding, String codage) {
+        if (acceptEncoding == null) return false;
+        Double explicite = null;
+        Double joker = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parties = element.split(";");
+            String nom = parties[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < parties.length; i++) {
+                String parametre = parties[i].trim();
+                if (parametre.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(parametre.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (nom.equals(codage)) explicite = q;
+            else if (nom.equals("*")) joker = q;
+        }
+        Double q = explicite != null ? explicite : joker;
+        return q != null && q > 0;
+    }
+}
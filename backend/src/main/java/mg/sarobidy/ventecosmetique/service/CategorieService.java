@@ -5,6 +5,7 @@ import mg.sarobidy.ventecosmetique.repository.CategorieRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -12,10 +13,12 @@ import java.util.List;
 public class CategorieService {
     @Autowired private CategorieRepository categorieRepository;
 
+    @Transactional(readOnly = true)
     public List<Categorie> getAllCategories() {
         return categorieRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Categorie getCategoryById(Long id) {
         return categorieRepository.findById(id).orElseThrow(() -> new RuntimeException("Categorie not found"));
     }
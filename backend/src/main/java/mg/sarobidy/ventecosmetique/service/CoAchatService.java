@@ -0,0 +1,212 @@
+package mg.sarobidy.ventecosmetique.service;
+
+import it.unimi.dsi.fastutil.longs.*;
+import mg.sarobidy.ventecosmetique.entity.Produit;
+import mg.sarobidy.ventecosmetique.event.CommandeCreeeEvent;
+import mg.sarobidy.ventecosmetique.repository.ProduitRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Index « souvent achetés ensemble » : pour chaque produit, le nombre de commandes (non annulées)
+// qui le contiennent avec chacun des autres produits. Matrice creuse produit → (produit → nombre).
+@Service
+public class CoAchatService {
+    private static final Logger log = LoggerFactory.getLogger(CoAchatService.class);
+    private static final int FETCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    @Autowired private ProduitRepository produitRepository;
+
+    @Value("${app.copurchase.build-threads:4}")
+    private int threads;
+    @Value("${app.copurchase.top-n:10}")
+    private int topN;
+
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+    private Long2ObjectOpenHashMap<Long2IntOpenHashMap> paires = new Long2ObjectOpenHashMap<>();
+    // Top-N trié par produit, calculé à la première lecture et invalidé quand ses compteurs changent
+    private final Long2ObjectOpenHashMap<long[]> meilleurs = new Long2ObjectOpenHashMap<>();
+
+    @Autowired
+    public CoAchatService(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public List<Produit> getProduitsAssocies(Long produitId, int limite) {
+        long[] ids = meilleurs(produitId);
+        int n = Math.min(limite, ids.length);
+        if (n == 0) return List.of();
+
+        List<Long> selection = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) selection.add(ids[i]);
+        Map<Long, Produit> produits = new HashMap<>();
+        for (Produit produit : produitRepository.findAllById(selection)) produits.put(produit.getId(), produit);
+        return selection.stream().map(produits::get).filter(Objects::nonNull).toList();
+    }
+
+    private long[] meilleurs(long produitId) {
+        verrou.readLock().lock();
+        try {
+            long[] ids = meilleurs.get(produitId);
+            if (ids != null) return ids;
+        } finally {
+            verrou.readLock().unlock();
+        }
+        verrou.writeLock().lock();
+        try {
+            long[] ids = meilleurs.get(produitId);
+            if (ids == null) {
+                ids = trier(paires.get(produitId), topN);
+                meilleurs.put(produitId, ids);
+            }
+            return ids;
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    private static long[] trier(Long2IntOpenHashMap voisins, int n) {
+        if (voisins == null || voisins.isEmpty()) return new long[0];
+        long[] ids = voisins.keySet().toLongArray();
+        // À égalité, l'id le plus petit d'abord pour un ordre stable
+        LongArrays.quickSort(ids, (a, b) -> {
+            int c = Integer.compare(voisins.get(b), voisins.get(a));
+            return c != 0 ? c : Long.compare(a, b);
+        });
+        return ids.length > n ? Arrays.copyOf(ids, n) : ids;
+    }
+
+    // Après validation uniquement : une commande annulée par un rollback n'ajoute aucune paire
+    @TransactionalEventListener
+    public void onCommandeCreee(CommandeCreeeEvent event) {
+        enregistrerCommande(event.lignes().stream().map(CommandeCreeeEvent.Ligne::produitId).toList());
+    }
+
+    // Mise à jour incrémentale après une nouvelle commande
+    public void enregistrerCommande(Collection<Long> produitIds) {
+        long[] ids = produitIds.stream().mapToLong(Long::longValue).distinct().toArray();
+        if (ids.length < 2) return;
+        verrou.writeLock().lock();
+        try {
+            ajouterPaires(paires, ids);
+            for (long id : ids) meilleurs.remove(id);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    private static void ajouterPaires(Long2ObjectOpenHashMap<Long2IntOpenHashMap> index, long[] ids) {
+        for (long a : ids) {
+            Long2IntOpenHashMap voisins = index.get(a);
+            if (voisins == null) {
+                voisins = new Long2IntOpenHashMap();
+                index.put(a, voisins);
+            }
+            for (long b : ids) {
+                if (a != b) voisins.addTo(b, 1);
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialiser() {
+        rebuild();
+    }
+
+    // Reconstruction nocturne : retire notamment les commandes annulées depuis
+    @Scheduled(cron = "${app.copurchase.rebuild-cron:0 30 3 * * *}")
+    public void rebuild() {
+        long t0 = System.currentTimeMillis();
+        Map<String, Object> bornes = jdbcTemplate.queryForMap("SELECT MIN(id) AS debut, MAX(id) AS fin FROM commandes");
+        Long2ObjectOpenHashMap<Long2IntOpenHashMap> index = new Long2ObjectOpenHashMap<>();
+        if (bornes.get("debut") != null) {
+            long debut = ((Number) bornes.get("debut")).longValue();
+            long fin = ((Number) bornes.get("fin")).longValue() + 1;
+            int nombre = Math.max(1, threads);
+            long pas = Math.max(1, (fin - debut + nombre - 1) / nombre);
+
+            // Chaque tâche lit une tranche d'ids de commande et construit son index partiel, fusionné ensuite
+            List<CompletableFuture<Long2ObjectOpenHashMap<Long2IntOpenHashMap>>> partiels = new ArrayList<>();
+            try (ExecutorService executor = Executors.newFixedThreadPool(nombre)) {
+                for (long borne = debut; borne < fin; borne += pas) {
+                    long de = borne;
+                    long a = Math.min(fin, borne + pas);
+                    partiels.add(CompletableFuture.supplyAsync(() -> construire(de, a), executor));
+                }
+                for (CompletableFuture<Long2ObjectOpenHashMap<Long2IntOpenHashMap>> partiel : partiels) {
+                    fusionner(index, partiel.join());
+                }
+            }
+        }
+
+        verrou.writeLock().lock();
+        try {
+            paires = index;
+            meilleurs.clear();
+        } finally {
+            verrou.writeLock().unlock();
+        }
+        log.info("Index de co-achat reconstruit : {} produit(s) en {} ms", index.size(), System.currentTimeMillis() - t0);
+    }
+
+    private Long2ObjectOpenHashMap<Long2IntOpenHashMap> construire(long debut, long fin) {
+        Long2ObjectOpenHashMap<Long2IntOpenHashMap> index = new Long2ObjectOpenHashMap<>();
+        LongArrayList commande = new LongArrayList();
+        long[] courante = {-1};
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(
+                "SELECT l.commande_id, l.produit_id FROM lignes_commande l JOIN commandes c ON c.id = l.commande_id " +
+                "WHERE c.statut <> 'ANNULE' AND l.commande_id >= ? AND l.commande_id < ? ORDER BY l.commande_id",
+                rs -> {
+                    long commandeId = rs.getLong(1);
+                    if (commandeId != courante[0]) {
+                        ajouterCommande(index, commande);
+                        commande.clear();
+                        courante[0] = commandeId;
+                    }
+                    commande.add(rs.getLong(2));
+                }, debut, fin));
+        ajouterCommande(index, commande);
+        return index;
+    }
+
+    private static void ajouterCommande(Long2ObjectOpenHashMap<Long2IntOpenHashMap> index, LongArrayList produits) {
+        if (produits.size() < 2) return;
+        long[] ids = Arrays.stream(produits.toLongArray()).distinct().toArray();
+        if (ids.length >= 2) ajouterPaires(index, ids);
+    }
+
+    private static void fusionner(Long2ObjectOpenHashMap<Long2IntOpenHashMap> cible,
+                                  Long2ObjectOpenHashMap<Long2IntOpenHashMap> partiel) {
+        for (Long2ObjectMap.Entry<Long2IntOpenHashMap> e : partiel.long2ObjectEntrySet()) {
+            Long2IntOpenHashMap existant = cible.get(e.getLongKey());
+            if (existant == null) {
+                cible.put(e.getLongKey(), e.getValue());
+                continue;
+            }
+            for (Long2IntMap.Entry voisin : e.getValue().long2IntEntrySet()) {
+                existant.addTo(voisin.getLongKey(), voisin.getIntValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package mg.sarobidy.ventecosmetique.service;
+
+import mg.sarobidy.ventecosmetique.dto.CommandeRecherche;
+import mg.sarobidy.ventecosmetique.entity.Commande;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Recherche paginée des commandes pour l'administration. La clause WHERE ne contient que les filtres
+// fournis, pour que PostgreSQL puisse choisir l'index (statut, date_commande) ou (utilisateur_id, date_commande).
+@Service
+public class CommandeRechercheService {
+    private static final Map<String, String> TRIS = Map.of(
+            "date", "c.date_commande",
+            "total", "c.total",
+            "statut", "c.statut",
+            "id", "c.id");
+    private static final int TAILLE_MAX = 200;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public CommandeRechercheService(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public record Filtres(Commande.Statut statut, LocalDateTime from, LocalDateTime to, String email,
+                          Double totalMin, Double totalMax) {
+    }
+
+    public CommandeRecherche rechercher(Filtres filtres, int page, int taille, String tri, boolean croissant) {
+        String colonne = TRIS.get(tri);
+        if (colonne == null) throw new IllegalArgumentException("Tri invalide : " + tri);
+        if (page < 0 || taille < 1 || taille > TAILLE_MAX) {
+            throw new IllegalArgumentException("Pagination invalide (taille entre 1 et " + TAILLE_MAX + ")");
+        }
+
+        StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (filtres.statut() != null) {
+            where.append(" AND c.statut = ?");
+            params.add(filtres.statut().name());
+        }
+        if (filtres.from() != null) {
+            where.append(" AND c.date_commande >= ?");
+            params.add(Timestamp.valueOf(filtres.from()));
+        }
+        if (filtres.to() != null) {
+            where.append(" AND c.date_commande < ?");
+            params.add(Timestamp.valueOf(filtres.to()));
+        }
+        if (filtres.email() != null && !filtres.email().isBlank()) {
+            // Préfixe insensible à la casse ; les utilisateurs trouvés sont ensuite joints par utilisateur_id
+            where.append(" AND c.utilisateur_id IN (SELECT id FROM users WHERE LOWER(email) LIKE ? ESCAPE '\\')");
+            params.add(echapper(filtres.email().trim().toLowerCase()) + "%");
+        }
+        if (filtres.totalMin() != null) {
+            where.append(" AND c.total >= ?");
+            params.add(filtres.totalMin());
+        }
+        if (filtres.totalMax() != null) {
+            where.append(" AND c.total <= ?");
+            params.add(filtres.totalMax());
+        }
+
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM commandes c" + where, Long.class, params.toArray());
+
+        List<Object> pageParams = new ArrayList<>(params);
+        pageParams.add(taille);
+        pageParams.add((long) page * taille);
+        // Le nombre d'articles n'est calculé que pour les lignes de la page
+        List<CommandeRecherche.EnTete> commandes = jdbcTemplate.query(
+                "SELECT c.id, c.date_commande, c.statut, c.total, c.utilisateur_id, u.email, " +
+                "TRIM(CONCAT(u.first_name, ' ', u.last_name)) AS client, " +
+                "(SELECT COALESCE(SUM(l.quantite), 0) FROM lignes_commande l WHERE l.commande_id = c.id) AS articles " +
+                "FROM commandes c LEFT JOIN users u ON u.id = c.utilisateur_id" + where +
+                " ORDER BY " + colonne + (croissant ? " ASC" : " DESC") + ", c.id" + (croissant ? " ASC" : " DESC") +
+                " LIMIT ? OFFSET ?",
+                (rs, i) -> new CommandeRecherche.EnTete(rs.getLong("id"),
+                        rs.getTimestamp("date_commande") != null ? rs.getTimestamp("date_commande").toLocalDateTime() : null,
+                        rs.getString("statut") != null ? Commande.Statut.valueOf(rs.getString("statut")) : null,
+                        rs.getDouble("total"), rs.getObject("utilisateur_id", Long.class), rs.getString("email"),
+                        rs.getString("client"), rs.getLong("articles")),
+                pageParams.toArray());
+
+        return new CommandeRecherche(commandes, page, taille, total != null ? total : 0);
+    }
+
+    private static String echapper(String motif) {
+        return motif.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -1,12 +1,16 @@
 package mg.sarobidy.ventecosmetique.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import mg.sarobidy.ventecosmetique.entity.*;
+import mg.sarobidy.ventecosmetique.event.CommandeCreeeEvent;
 import mg.sarobidy.ventecosmetique.repository.CommandeRepository;
 import mg.sarobidy.ventecosmetique.repository.LigneCommandeRepository;
-import mg.sarobidy.ventecosmetique.repository.PanierRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -14,14 +18,18 @@ import java.util.stream.Collectors;
 @Service
 public class CommandeService {
     @Autowired private CommandeRepository commandeRepository;
-    @Autowired private PanierRepository panierRepository;
     @Autowired private LigneCommandeRepository ligneCommandeRepository;
-    @Autowired private EmailService emailService;
-
+    @Autowired private ApplicationEventPublisher eventPublisher;
+    @Autowired private PanierService panierService;
+    @Autowired private VenteRollupService venteRollupService;
+    @Autowired private MeterRegistry meterRegistry;
+
+    // Le total vient des totaux maintenus sur le panier et chaque ligne reprend le prix effectif
+    // déjà figé sur l'article : aucun prix n'est recalculé au passage de la commande.
+    @Transactional
     public Commande createOrder(Long userId) {
-        Panier panier = panierRepository.findByUtilisateurId(userId)
-                .orElseThrow(() -> new RuntimeException("Panier not found"));
-        if (panier.getItems().isEmpty()) throw new IllegalStateException("Panier vide");
+        Panier panier = panierService.getCartByUserId(userId);
+        if (panier.getItems() == null || panier.getItems().isEmpty()) throw new IllegalStateException("Panier vide");
 
         Commande commande = new Commande();
         commande.setUtilisateur(panier.getUtilisateur());
@@ -33,41 +41,49 @@ public class CommandeService {
             ligne.setCommande(commande);
             ligne.setProduit(item.getProduit());
             ligne.setQuantite(item.getQuantite());
+            ligne.setPrixUnitaire(BigDecimal.valueOf(item.getPrixEffectifCentimes(), 2));
             return ligne;
         }).collect(Collectors.toList());
 
         commande.setLignesCommande(lignes);
-        commande.setTotal(panier.getItems().stream()
-                .mapToDouble(item -> item.getProduit().getPrix().doubleValue() * item.getQuantite())
-                .sum());
+        commande.setTotal(panier.getTotal().doubleValue());
 
         Commande savedCommande = commandeRepository.save(commande);
         ligneCommandeRepository.saveAll(lignes);
+        venteRollupService.enregistrer(savedCommande);
+        meterRegistry.counter("app.commandes.creees").increment();
 
-
-        emailService.sendOrderConfirmationEmail(savedCommande);
-
+        // Email de confirmation, classements et co-achats mis à jour après validation
+        // (EmailService, TendanceService, CoAchatService)
+        eventPublisher.publishEvent(CommandeCreeeEvent.of(savedCommande));
 
         return savedCommande;
     }
 
+    @Transactional(readOnly = true)
     public List<Commande> getOrdersByUserId(Long userId) {
         return commandeRepository.findByUtilisateurId(userId);
     }
 
+    @Transactional(readOnly = true)
     public List<Commande> getAllOrders() {
         return commandeRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Commande getOrderById(Long orderId) {
         return commandeRepository.findById(orderId).orElseThrow(() -> new RuntimeException("Commande not found"));
     }
 
+    @Transactional
     public void updateOrderStatus(Long orderId, Commande.Statut status) {
         Commande commande = getOrderById(orderId);
+        Commande.Statut ancien = commande.getStatut();
         commande.setStatut(status);
 
         Commande saveCommande = commandeRepository.save(commande);
+        venteRollupService.changementStatut(saveCommande, ancien, status);
+        if (ancien != status) meterRegistry.counter("app.commandes.transitions", "statut", status.name()).increment();
 
 //        if(saveCommande.getStatut().equals(Commande.Statut.LIVRE)){
 //            emailService.sendPaymentConfirmationEmail(saveCommande);
@@ -75,11 +91,14 @@ public class CommandeService {
 
     }
 
+    @Transactional
     public void cancelOrder(Long orderId) {
         Commande commande = getOrderById(orderId);
         if (commande.getStatut() == Commande.Statut.EN_ATTENTE) {
             commande.setStatut(Commande.Statut.ANNULE);
             commandeRepository.save(commande);
+            venteRollupService.retirer(commande);
+            meterRegistry.counter("app.commandes.transitions", "statut", Commande.Statut.ANNULE.name()).increment();
         } else {
             throw new IllegalStateException("Commande ne peut pas être annulée");
         }
@@ -0,0 +1,82 @@
+package mg.sarobidy.ventecosmetique.service;
+
+import mg.sarobidy.ventecosmetique.dto.Dashboard;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+// Les commandes annulées ne comptent ni dans le chiffre d'affaires ni dans la série.
+@Service
+public class DashboardService {
+    private static final Set<String> GRANULARITES = Set.of("day", "week", "month");
+    private static final int PRODUITS_POPULAIRES = 5;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private record Totaux(BigDecimal chiffreAffaires, long commandes) {
+    }
+
+    @Autowired
+    public DashboardService(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    // periode : week (7 jours), month (30 jours) ou all ; granularite : day, week ou month
+    public Dashboard getDashboard(String periode, String granularite) {
+        if (!GRANULARITES.contains(granularite)) {
+            throw new IllegalArgumentException("Granularité invalide : " + granularite);
+        }
+        LocalDateTime debut = switch (periode) {
+            case "week" -> LocalDate.now().minusDays(6).atStartOfDay();
+            case "month" -> LocalDate.now().minusDays(29).atStartOfDay();
+            case "all" -> null;
+            default -> throw new IllegalArgumentException("Période invalide : " + periode);
+        };
+        Timestamp depuis = Timestamp.valueOf(debut != null ? debut : LocalDateTime.of(1970, 1, 1, 0, 0));
+
+        Totaux totaux = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(total), 0) AS ca, COUNT(*) AS nb FROM commandes " +
+                "WHERE statut <> 'ANNULE' AND date_commande >= ?",
+                (rs, i) -> new Totaux(rs.getBigDecimal("ca"), rs.getLong("nb")), depuis);
+
+        long enAttente = compter("SELECT COUNT(*) FROM commandes WHERE statut = 'EN_ATTENTE'");
+        long produits = compter("SELECT COUNT(*) FROM produits");
+        long stocksBas = compter("SELECT COUNT(*) FROM produits WHERE stock < seuil_stock_bas");
+        long utilisateurs = compter("SELECT COUNT(*) FROM users");
+
+        // date_trunc côté base : une ligne par intervalle, quel que soit le volume de commandes
+        List<Dashboard.Point> serie = jdbcTemplate.query(
+                "SELECT date_trunc(?, date_commande) AS debut, SUM(total) AS ca, COUNT(*) AS nb FROM commandes " +
+                "WHERE statut <> 'ANNULE' AND date_commande >= ? GROUP BY 1 ORDER BY 1",
+                (rs, i) -> new Dashboard.Point(rs.getTimestamp("debut").toLocalDateTime().toLocalDate(),
+                        rs.getBigDecimal("ca"), rs.getLong("nb")),
+                granularite, depuis);
+
+        // Lu dans les cumuls journaliers plutôt que dans lignes_commande
+        List<Dashboard.ProduitPopulaire> populaires = jdbcTemplate.query(
+                "SELECT p.id, p.nom, p.stock, p.prix, SUM(v.quantite) AS vendus " +
+                "FROM ventes_jour_produit v JOIN produits p ON p.id = v.produit_id WHERE v.jour >= ? " +
+                "GROUP BY p.id, p.nom, p.stock, p.prix HAVING SUM(v.quantite) > 0 ORDER BY vendus DESC, p.id LIMIT ?",
+                (rs, i) -> new Dashboard.ProduitPopulaire(rs.getLong("id"), rs.getString("nom"), rs.getInt("stock"),
+                        rs.getBigDecimal("prix"), rs.getLong("vendus")),
+                Date.valueOf(depuis.toLocalDateTime().toLocalDate()), PRODUITS_POPULAIRES);
+
+        return new Dashboard(totaux.chiffreAffaires().setScale(2, RoundingMode.HALF_UP), totaux.commandes(),
+                enAttente, produits, stocksBas, utilisateurs, granularite, serie, populaires);
+    }
+
+    private long compter(String sql) {
+        Long n = jdbcTemplate.queryForObject(sql, Long.class);
+        return n != null ? n : 0;
+    }
+}
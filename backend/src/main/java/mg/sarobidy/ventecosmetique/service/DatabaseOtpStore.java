@@ -0,0 +1,78 @@
+package mg.sarobidy.ventecosmetique.service;
+
+import mg.sarobidy.ventecosmetique.entity.VerificationCode;
+import mg.sarobidy.ventecosmetique.entity.VerificationCode.Motif;
+import mg.sarobidy.ventecosmetique.repository.VerificationCodeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "database")
+public class DatabaseOtpStore implements OtpStore {
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    @Autowired private VerificationCodeRepository verificationCodeRepository;
+
+    @Value("${app.otp.max-attempts:5}")
+    private int maxTentatives;
+
+    @Override
+    @Transactional
+    public void save(Motif motif, String email, String code, Duration validite) {
+        email = OtpStore.normaliserEmail(email);
+        verificationCodeRepository.deleteByEmailAndMotif(email, motif);
+
+        VerificationCode verificationCode = new VerificationCode();
+        verificationCode.setEmail(email);
+        verificationCode.setMotif(motif);
+        verificationCode.setCode(code);
+        verificationCode.setTentatives(0);
+        verificationCode.setExpirationDate(LocalDateTime.now().plus(validite));
+        verificationCodeRepository.save(verificationCode);
+    }
+
+    @Override
+    @Transactional
+    public Verification verify(Motif motif, String email, String code) {
+        email = OtpStore.normaliserEmail(email);
+        Optional<VerificationCode> trouve = verificationCodeRepository.findForUpdate(email, motif);
+        if (trouve.isEmpty() || code == null) return Verification.INVALIDE;
+
+        VerificationCode verify = trouve.get();
+        if (verify.getExpirationDate().isBefore(LocalDateTime.now())) {
+            verificationCodeRepository.delete(verify);
+            return Verification.EXPIRE;
+        }
+        if (MessageDigest.isEqual(verify.getCode().getBytes(StandardCharsets.UTF_8), code.getBytes(StandardCharsets.UTF_8))) {
+            verificationCodeRepository.delete(verify);
+            return Verification.VALIDE;
+        }
+        int tentatives = (verify.getTentatives() != null ? verify.getTentatives() : 0) + 1;
+        if (tentatives >= maxTentatives) {
+            verificationCodeRepository.delete(verify);
+            return Verification.BLOQUE;
+        }
+        verify.setTentatives(tentatives);
+        verificationCodeRepository.save(verify);
+        return Verification.INVALIDE;
+    }
+
+    // Purge par lots pour ne pas verrouiller la table d'un coup
+    @Scheduled(fixedDelayString = "${app.otp.purge-interval:60000}")
+    public void purgeExpired() {
+        int supprimes;
+        do {
+            supprimes = verificationCodeRepository.deleteExpired(LocalDateTime.now(), PURGE_BATCH_SIZE);
+        } while (supprimes == PURGE_BATCH_SIZE);
+    }
+}
@@ -1,14 +1,18 @@
 package mg.sarobidy.ventecosmetique.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import mg.sarobidy.ventecosmetique.entity.Commande;
-import mg.sarobidy.ventecosmetique.entity.LigneCommande;
+import mg.sarobidy.ventecosmetique.event.CommandeCreeeEvent;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.time.format.DateTimeFormatter;
 
@@ -18,6 +22,9 @@ public class EmailService {
     @Autowired
     private JavaMailSender mailSender;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     // Méthode générique pour envoyer un email en texte brut
     public void sendEmail(String to, String subject, String text) {
         SimpleMailMessage message = new SimpleMailMessage();
@@ -25,7 +32,7 @@ public class EmailService {
         message.setFrom("CosmoPink <tosyrazafitsotra@gmail.com>");
         message.setSubject(subject);
         message.setText(text);
-        mailSender.send(message);
+        envoyer("texte", () -> mailSender.send(message));
     }
 
     public void sendEmailContact(String from, String subject, String text) {
@@ -34,7 +41,18 @@ public class EmailService {
         message.setFrom("CosmoPink Contact du Client " + from + " <tosyrazafitsotra@gmail.com>");
         message.setSubject(subject);
         message.setText(text);
-        mailSender.send(message);
+        envoyer("contact", () -> mailSender.send(message));
+    }
+
+    // Compte les envois réussis et en échec par type (métrique app.emails)
+    private void envoyer(String type, Runnable envoi) {
+        try {
+            envoi.run();
+            meterRegistry.counter("app.emails", "type", type, "resultat", "envoye").increment();
+        } catch (RuntimeException e) {
+            meterRegistry.counter("app.emails", "type", type, "resultat", "echec").increment();
+            throw e;
+        }
     }
 
     // Méthode générique pour envoyer un email HTML
@@ -46,24 +64,27 @@ public class EmailService {
             helper.setFrom("CosmoPink <tosyrazafitsotra@gmail.com>");
             helper.setSubject(subject);
             helper.setText(htmlContent, true); // true indique que c'est du HTML
-            mailSender.send(message);
         } catch (MessagingException e) {
+            meterRegistry.counter("app.emails", "type", "html", "resultat", "echec").increment();
             throw new RuntimeException("Erreur lors de l'envoi de l'email HTML", e);
         }
+        envoyer("html", () -> mailSender.send(message));
     }
 
+    @Async
     public void sendWelcomeEmail(String to, String firstName) {
         String subject = "Bienvenue chez Vente Cosmetique!";
         String text = String.format("Bonjour %s,\n\nBienvenue sur notre plateforme! Votre inscription est réussie.", firstName);
         sendEmail(to, subject, text);
     }
 
-    public void sendOrderConfirmationEmail(Commande commande) {
-        String subject = "Confirmation de votre commande #" + commande.getId();
-        String firstName = commande.getUtilisateur().getFirstName() != null
-                ? commande.getUtilisateur().getFirstName()
-                : "Client";
-        String email = commande.getUtilisateur().getEmail();
+    // Après validation de la commande uniquement : rien n'est envoyé pour une commande annulée par un rollback
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void sendOrderConfirmationEmail(CommandeCreeeEvent commande) {
+        String subject = "Confirmation de votre commande #" + commande.commandeId();
+        String firstName = commande.prenom() != null ? commande.prenom() : "Client";
+        String email = commande.email();
         if (email == null || email.isEmpty()) {
             throw new IllegalStateException("L'email de l'utilisateur est requis pour envoyer la confirmation.");
         }
@@ -86,7 +107,8 @@ public class EmailService {
         sendEmail(commande.getUtilisateur().getEmail(), subject, text);
     }
 
-    private String buildOrderConfirmationHtml(Commande commande, String firstName) {
+    // Visibilité paquet : mesuré par EmailBenchmark (module benchmarks)
+    String buildOrderConfirmationHtml(CommandeCreeeEvent commande, String firstName) {
         StringBuilder html = new StringBuilder();
         html.append("<!DOCTYPE html>");
         html.append("<html lang='fr'>");
@@ -115,7 +137,7 @@ public class EmailService {
 
         // Header
         html.append("<div class='header'>");
-        html.append("<h1>Confirmation de Commande #" + commande.getId() + "</h1>");
+        html.append("<h1>Confirmation de Commande #" + commande.commandeId() + "</h1>");
         html.append("</div>");
 
         // Content
@@ -126,8 +148,8 @@ public class EmailService {
         // Détails de la commande
         html.append("<div class='details'>");
         html.append("<p><strong>Date :</strong> " +
-                commande.getDateCommande().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")) + "</p>");
-        html.append("<p><strong>Statut :</strong> " + commande.getStatut().toString() + "</p>");
+                commande.dateCommande().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")) + "</p>");
+        html.append("<p><strong>Statut :</strong> " + commande.statut().toString() + "</p>");
         html.append("</div>");
 
         // Tableau des articles
@@ -143,14 +165,14 @@ public class EmailService {
         html.append("</thead>");
         html.append("<tbody>");
         int index = 1;
-        for (LigneCommande ligne : commande.getLignesCommande()) {
+        for (CommandeCreeeEvent.Ligne ligne : commande.lignes()) {
             html.append("<tr>");
             html.append("<td>" + index++ + "</td>");
-            html.append("<td>" + ligne.getProduit().getNom() + "</td>");
-            html.append("<td>" + ligne.getQuantite() + "</td>");
-            html.append("<td>" + ligne.getProduit().getPrix() + " Ar</td>");
+            html.append("<td>" + ligne.produitNom() + "</td>");
+            html.append("<td>" + ligne.quantite() + "</td>");
+            html.append("<td>" + ligne.prixUnitaire() + " Ar</td>");
             html.append("<td>" +
-                    ligne.getProduit().getPrix().multiply(java.math.BigDecimal.valueOf(ligne.getQuantite())) +
+                    ligne.prixUnitaire().multiply(java.math.BigDecimal.valueOf(ligne.quantite())) +
                     " Ar</td>");
             html.append("</tr>");
         }
@@ -158,7 +180,7 @@ public class EmailService {
         html.append("</table>");
 
         // Total
-        html.append("<p class='total'>Total : " + commande.getTotal() + " Ar</p>");
+        html.append("<p class='total'>Total : " + commande.total() + " Ar</p>");
         html.append("</div>");
 
         // Footer
@@ -0,0 +1,117 @@
+package mg.sarobidy.ventecosmetique.service;
+
+import com.opencsv.CSVWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+@Service
+public class ExportService {
+    // Nombre de lignes ramenées par aller-retour : le curseur PostgreSQL n'est actif
+    // qu'avec autocommit désactivé, d'où la transaction en lecture seule autour de chaque export.
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public ExportService(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public void exportOrders(LocalDate from, LocalDate to, boolean gzip, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder(
+                "SELECT c.id, c.date_commande, u.email, u.first_name, u.last_name, c.statut, c.total " +
+                "FROM commandes c LEFT JOIN users u ON u.id = c.utilisateur_id WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        appendDateRange(sql, params, "c.date_commande", from, to);
+        sql.append(" ORDER BY c.id");
+
+        String[] header = {"id", "date_commande", "email", "prenom", "nom", "statut", "total"};
+        export(sql.toString(), params, header, gzip, out);
+    }
+
+    public void exportHistoriqueStock(LocalDate from, LocalDate to, boolean gzip, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder(
+                "SELECT h.id, h.date, h.produit_id, p.nom, h.action, h.quantity " +
+                "FROM historique_stocks h LEFT JOIN produits p ON p.id = h.produit_id WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        appendDateRange(sql, params, "h.date", from, to);
+        sql.append(" ORDER BY h.id");
+
+        String[] header = {"id", "date", "produit_id", "produit", "action", "quantite"};
+        export(sql.toString(), params, header, gzip, out);
+    }
+
+    public void exportUsers(boolean gzip, OutputStream out) throws IOException {
+        String sql = "SELECT id, email, first_name, last_name, address, country, role, blocked FROM users ORDER BY id";
+        String[] header = {"id", "email", "prenom", "nom", "adresse", "pays", "role", "bloque"};
+        export(sql, List.of(), header, gzip, out);
+    }
+
+    private void appendDateRange(StringBuilder sql, List<Object> params, String column, LocalDate from, LocalDate to) {
+        if (from != null) {
+            sql.append(" AND ").append(column).append(" >= ?");
+            params.add(Timestamp.valueOf(from.atStartOfDay()));
+        }
+        if (to != null) {
+            sql.append(" AND ").append(column).append(" < ?");
+            params.add(Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+        }
+    }
+
+    private void export(String sql, List<Object> params, String[] header, boolean gzip, OutputStream out) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+        CSVWriter csvWriter = new CSVWriter(writer);
+        csvWriter.writeNext(header, false);
+
+        // CSVWriter avale les IOException : on vérifie périodiquement pour interrompre
+        // la lecture du curseur dès que le client a fermé la connexion.
+        int[] count = {0};
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.query(sql, rs -> {
+                    csvWriter.writeNext(toRow(rs), false);
+                    if (++count[0] % FETCH_SIZE == 0 && csvWriter.checkError()) {
+                        throw new UncheckedIOException(new IOException("Export interrompu par le client"));
+                    }
+                }, params.toArray()));
+
+        csvWriter.flush();
+        if (target instanceof GZIPOutputStream gzipOut) {
+            gzipOut.finish();
+        }
+        writer.flush();
+    }
+
+    private String[] toRow(ResultSet rs) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        String[] row = new String[meta.getColumnCount()];
+        for (int i = 0; i < row.length; i++) {
+            Object value = rs.getObject(i + 1);
+            if (value instanceof Timestamp timestamp) {
+                row[i] = timestamp.toLocalDateTime().toString();
+            } else {
+                row[i] = value != null ? value.toString() : "";
+            }
+        }
+        return row;
+    }
+}
@@ -0,0 +1,94 @@
+package mg.sarobidy.ventecosmetique.service;
+
+import mg.sarobidy.ventecosmetique.entity.VerificationCode.Motif;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpStore implements OtpStore {
+
+    private final Map<String, Entree> codes = new ConcurrentHashMap<>();
+    // File triée par date d'expiration : la purge ne parcourt que les codes échus
+    private final DelayQueue<Expiration> expirations = new DelayQueue<>();
+
+    @Value("${app.otp.max-attempts:5}")
+    private int maxTentatives;
+
+    private static final class Entree {
+        final String code;
+        final long expireA;
+        int tentatives;
+
+        Entree(String code, long expireA) {
+            this.code = code;
+            this.expireA = expireA;
+        }
+    }
+
+    private record Expiration(String cle, Entree entree) implements Delayed {
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(entree.expireA - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(entree.expireA, ((Expiration) other).entree.expireA);
+        }
+    }
+
+    @Override
+    public void save(Motif motif, String email, String code, Duration validite) {
+        String cle = cle(motif, email);
+        Entree entree = new Entree(code, System.nanoTime() + validite.toNanos());
+        codes.put(cle, entree);
+        expirations.add(new Expiration(cle, entree));
+    }
+
+    @Override
+    public Verification verify(Motif motif, String email, String code) {
+        String cle = cle(motif, email);
+        Entree entree = codes.get(cle);
+        if (entree == null || code == null) return Verification.INVALIDE;
+
+        synchronized (entree) {
+            if (entree.expireA - System.nanoTime() <= 0) {
+                codes.remove(cle, entree);
+                return Verification.EXPIRE;
+            }
+            if (MessageDigest.isEqual(entree.code.getBytes(StandardCharsets.UTF_8), code.getBytes(StandardCharsets.UTF_8))) {
+                return codes.remove(cle, entree) ? Verification.VALIDE : Verification.INVALIDE;
+            }
+            if (++entree.tentatives >= maxTentatives) {
+                codes.remove(cle, entree);
+                return Verification.BLOQUE;
+            }
+            return Verification.INVALIDE;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.otp.purge-interval:60000}")
+    public void purgeExpired() {
+        Expiration expiration;
+        while ((expiration = expirations.poll()) != null) {
+            // remove(cle, valeur) : un code réémis entre-temps n'est pas touché
+            codes.remove(expiration.cle(), expiration.entree());
+        }
+    }
+
+    private String cle(Motif motif, String email) {
+        return motif.name() + ':' + OtpStore.normaliserEmail(email);
+    }
+}
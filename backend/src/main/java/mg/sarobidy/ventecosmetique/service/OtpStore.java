@@ -0,0 +1,25 @@
+package mg.sarobidy.ventecosmetique.service;
+
+import mg.sarobidy.ventecosmetique.entity.VerificationCode.Motif;
+
+import java.time.Duration;
+import java.util.Locale;
+
+// Stockage des codes OTP (inscription, réinitialisation du mot de passe).
+// Implémentation choisie par app.otp.store : "memory" (par défaut, un seul nœud)
+// ou "database" (table partagée entre plusieurs nœuds).
+public interface OtpStore {
+
+    enum Verification { VALIDE, INVALIDE, EXPIRE, BLOQUE }
+
+    // Remplace un éventuel code encore en cours pour le même email et le même motif
+    void save(Motif motif, String email, String code, Duration validite);
+
+    // Un code valide est consommé ; après trop d'échecs le code est invalidé
+    Verification verify(Motif motif, String email, String code);
+
+    // Clé commune aux implémentations : le résultat ne dépend pas du stockage configuré
+    static String normaliserEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,12 +1,22 @@
 package mg.sarobidy.ventecosmetique.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import mg.sarobidy.ventecosmetique.entity.*;
+import mg.sarobidy.ventecosmetique.event.AjoutPanierEvent;
+import mg.sarobidy.ventecosmetique.event.CatalogueModifieEvent;
 import mg.sarobidy.ventecosmetique.repository.*;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.*;
 
 @Service
 public class PanierService {
@@ -16,26 +26,42 @@ public class PanierService {
     @Autowired private StockRepository stockRepository;
     @Autowired private HistoriqueStockRepository historiqueStockRepository;
     @Autowired private UserRepository userRepository;
+    @Autowired private TarificationService tarificationService;
+    @Autowired private MeterRegistry meterRegistry;
+    @Autowired private ApplicationEventPublisher eventPublisher;
 
+    @Transactional
     public Panier getCartByUserId(Long userId) {
-        return panierRepository.findByUtilisateurId(userId)
+        Panier panier = panierRepository.findByUtilisateurId(userId)
                 .orElseGet(() -> createNewCart(userId));
+        if (!panier.totauxCalcules()) {
+            panier = lockCart(userId);
+        }
+        return panier;
     }
 
+    @Transactional
     public Panier addToCart(Long userId, Long productId, int quantity) {
-        Panier panier = getCartByUserId(userId);
+        if (quantity <= 0) throw new IllegalArgumentException("La quantité doit être positive");
+        Panier panier = lockCart(userId);
         Produit produit = produitRepository.findById(productId).orElseThrow(() -> new RuntimeException("Produit not found"));
         if (produit.getStock() < quantity) throw new IllegalStateException("Stock insuffisant");
 
-        PanierItem item = panier.getItems().stream()
-                .filter(i -> i.getProduit().getId().equals(productId))
-                .findFirst()
-                .orElse(new PanierItem());
+        // Recherche ciblée : parcourir panier.getItems() chargerait tous les articles et leurs produits
+        PanierItem item = panierItemRepository.findByPanierIdAndProduitId(panier.getId(), productId)
+                .orElseGet(() -> {
+                    PanierItem nouveau = new PanierItem();
+                    tarifer(nouveau, produit, LocalDateTime.now());
+                    if (Hibernate.isInitialized(panier.getItems())) panier.getItems().add(nouveau);
+                    return nouveau;
+                });
 
         item.setPanier(panier);
         item.setProduit(produit);
         item.setQuantite(item.getQuantite() + quantity);
         panierItemRepository.save(item);
+        panier.appliquer(quantity * item.getPrixUnitaireCentimes(),
+                quantity * (item.getPrixUnitaireCentimes() - item.getPrixEffectifCentimes()), quantity);
         produit.setStock(produit.getStock() - quantity);
         Produit updatedProduit = produitRepository.save(produit);
 
@@ -50,15 +76,23 @@ public class PanierService {
         HistoriqueStock historique = new HistoriqueStock();
         historique.setAction("Ajout dans la panier");
         historique.setQuantity(updatedProduit.getStock());
+        historique.setStockApres(updatedProduit.getStock());
         historique.setDate(LocalDateTime.now());
         historique.setProduit(updatedProduit);
         historiqueStockRepository.save(historique);
+        eventPublisher.publishEvent(CatalogueModifieEvent.stock(productId));
+
+        eventPublisher.publishEvent(new AjoutPanierEvent(productId, quantity));
+        compter("ajout", quantity);
 
         return panierRepository.save(panier);
     }
 
-    public void updateCartItem(Long itemId, int quantity) {
-        PanierItem item = panierItemRepository.findById(itemId).orElseThrow(() -> new RuntimeException("Item not found"));
+    @Transactional
+    public void updateCartItem(Long userId, Long itemId, int quantity) {
+        if (quantity <= 0) throw new IllegalArgumentException("La quantité doit être positive");
+        Panier panier = lockCart(userId);
+        PanierItem item = findOwnedItem(userId, itemId);
         Produit produit = item.getProduit();
         int currentQuantity = item.getQuantite();
         int stockDifference = quantity - currentQuantity;
@@ -78,15 +112,23 @@ public class PanierService {
         HistoriqueStock historique = new HistoriqueStock();
         historique.setAction("Modification dans la panier");
         historique.setQuantity(updatedProduit.getStock());
+        historique.setStockApres(updatedProduit.getStock());
         historique.setDate(LocalDateTime.now());
         historique.setProduit(updatedProduit);
         historiqueStockRepository.save(historique);
+        eventPublisher.publishEvent(CatalogueModifieEvent.stock(produit.getId()));
 
         panierItemRepository.save(item);
+        panier.appliquer(stockDifference * item.getPrixUnitaireCentimes(),
+                stockDifference * (item.getPrixUnitaireCentimes() - item.getPrixEffectifCentimes()), stockDifference);
+        panierRepository.save(panier);
+        compter("modification", stockDifference);
     }
 
-    public void removeFromCart(Long itemId) {
-        PanierItem item = panierItemRepository.findById(itemId).orElseThrow(() -> new RuntimeException("Item not found"));
+    @Transactional
+    public void removeFromCart(Long userId, Long itemId) {
+        Panier panier = lockCart(userId);
+        PanierItem item = findOwnedItem(userId, itemId);
         Produit produit = item.getProduit();
         produit.setStock(produit.getStock() + item.getQuantite());
         Produit updatedProduit = produitRepository.save(produit);
@@ -102,11 +144,70 @@ public class PanierService {
         HistoriqueStock historique = new HistoriqueStock();
         historique.setAction("Suppression dans la panier");
         historique.setQuantity(updatedProduit.getStock());
+        historique.setStockApres(updatedProduit.getStock());
         historique.setDate(LocalDateTime.now());
         historique.setProduit(updatedProduit);
         historiqueStockRepository.save(historique);
+        eventPublisher.publishEvent(CatalogueModifieEvent.stock(produit.getId()));
 
+        panier.appliquer(-item.sousTotalCentimes(), -item.remiseCentimes(), -item.getQuantite());
+        if (Hibernate.isInitialized(panier.getItems())) panier.getItems().remove(item);
         panierItemRepository.delete(item);
+        panierRepository.save(panier);
+        compter("suppression", -item.getQuantite());
+    }
+
+    // Prix ou promotion modifiés : seuls les paniers contenant ces produits sont mis à jour, par différence.
+    // Après validation et dans sa propre transaction : les verrous des paniers ne prolongent pas celle de
+    // l'administration, et une modification annulée ne change aucun panier. Stock et avis sont ignorés,
+    // sans ouvrir de transaction (condition évaluée avant l'appel).
+    @TransactionalEventListener(fallbackExecution = true, condition = "#event.tarifsModifies()")
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onCatalogueModifie(CatalogueModifieEvent event) {
+        if (event.produitIds().isEmpty()) return;
+        List<Long> panierIds = panierItemRepository.findPanierIdsByProduitIdIn(event.produitIds());
+        if (panierIds.isEmpty()) return;
+
+        Map<Long, Panier> paniers = new HashMap<>();
+        for (Panier panier : panierRepository.findAllForUpdate(panierIds)) paniers.put(panier.getId(), panier);
+
+        LocalDateTime maintenant = LocalDateTime.now();
+        for (PanierItem item : panierItemRepository.findByProduitIdIn(event.produitIds())) {
+            Panier panier = paniers.get(item.getPanier().getId());
+            if (panier == null || !panier.totauxCalcules()) continue;
+            long sousTotal = item.sousTotalCentimes();
+            long remise = item.remiseCentimes();
+            tarifer(item, item.getProduit(), maintenant);
+            panier.appliquer(item.sousTotalCentimes() - sousTotal, item.remiseCentimes() - remise, 0);
+        }
+    }
+
+    // Panier verrouillé, créé au besoin ; les paniers sans totaux (antérieurs) sont recalculés une fois
+    private Panier lockCart(Long userId) {
+        Panier panier = panierRepository.findByUtilisateurIdForUpdate(userId)
+                .orElseGet(() -> createNewCart(userId));
+        if (panier.getItems() == null) panier.setItems(new ArrayList<>());
+        if (!panier.totauxCalcules()) {
+            panier.setSousTotalCentimes(0L);
+            panier.setRemiseCentimes(0L);
+            panier.setNombreArticles(0);
+            LocalDateTime maintenant = LocalDateTime.now();
+            for (PanierItem item : panier.getItems()) {
+                tarifer(item, item.getProduit(), maintenant);
+                panier.appliquer(item.sousTotalCentimes(), item.remiseCentimes(), item.getQuantite());
+            }
+            panier = panierRepository.save(panier);
+        }
+        return panier;
+    }
+
+    private void tarifer(PanierItem item, Produit produit, LocalDateTime instant) {
+        item.setPrixUnitaireCentimes(centimes(produit.getPrix()));
+        item.setPrixEffectifCentimes(centimes(tarificationService.prixEffectif(produit, instant)));
+    }
+
+    private static long centimes(BigDecimal montant) {
+        return montant == null ? 0 : montant.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
     }
 
     @Transactional
@@ -115,7 +216,25 @@ public class PanierService {
         Panier panier = panierRepository.findByUtilisateurId(userId)
                 .orElseThrow(() -> new RuntimeException("Panier non trouvé pour l'utilisateur avec l'ID : " + userId));
 
+        // Articles supprimés en une requête, la cascade de Panier.items les supprimerait un par un
+        panierItemRepository.deleteByPanierId(panier.getId());
         panierRepository.delete(panier);
+        meterRegistry.counter("app.panier.mutations", "operation", "vidage").increment();
+    }
+
+    // Une mutation de panier, et les unités de stock réservées (quantite > 0) ou libérées (quantite < 0)
+    private void compter(String operation, int quantite) {
+        meterRegistry.counter("app.panier.mutations", "operation", operation).increment();
+        if (quantite != 0) {
+            meterRegistry.counter("app.stock.reservations", "sens", quantite > 0 ? "reserve" : "libere")
+                    .increment(Math.abs(quantite));
+        }
+    }
+
+    private PanierItem findOwnedItem(Long userId, Long itemId) {
+        return panierItemRepository.findById(itemId)
+                .filter(item -> item.getPanier().getUtilisateur().getId().equals(userId))
+                .orElseThrow(() -> new RuntimeException("Item not found"));
     }
 
     private Panier createNewCart(Long userId) {
@@ -125,6 +244,10 @@ public class PanierService {
 
         Panier panier = new Panier();
         panier.setUtilisateur(user);
+        panier.setItems(new ArrayList<>());
+        panier.setSousTotalCentimes(0L);
+        panier.setRemiseCentimes(0L);
+        panier.setNombreArticles(0);
         return panierRepository.save(panier);
     }
 }
\ No newline at end of file
@@ -0,0 +1,203 @@
+package mg.sarobidy.ventecosmetique.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Prévisions de réapprovisionnement : demande journalière observée sur une fenêtre glissante,
+// couverture du stock actuel, stock de sécurité, point de commande et quantité suggérée.
+//
+// Les produits sont découpés en tranches d'ids traitées en parallèle ; chaque tranche agrège en base
+// ses ventes et ses retraits de stock par jour, de sorte que seul jours × produits remonte en mémoire.
+@Service
+public class PrevisionStockService {
+    private static final Logger log = LoggerFactory.getLogger(PrevisionStockService.class);
+
+    // Ventes par produit et par jour (commandes non annulées)
+    private static final String VENTES =
+            "SELECT l.produit_id, CAST(c.date_commande AS date) AS jour, SUM(l.quantite) AS quantite " +
+            "FROM lignes_commande l JOIN commandes c ON c.id = l.commande_id " +
+            "WHERE c.statut <> 'ANNULE' AND c.date_commande >= ? AND l.produit_id >= ? AND l.produit_id < ? " +
+            "GROUP BY 1, 2";
+
+    // Retraits manuels par produit et par jour (StockService, action « Sortie » dont quantity est la quantité
+    // retirée). Les mouvements des paniers ne sont que des réservations, libérées ou devenues des ventes,
+    // et les modifications de produit ou imports sont des corrections : aucun n'est de la demande.
+    private static final String SORTIES =
+            "SELECT produit_id, CAST(date AS date) AS jour, SUM(quantity) AS quantite FROM historique_stocks " +
+            "WHERE action = 'Sortie' AND quantity > 0 AND date >= ? AND produit_id >= ? AND produit_id < ? " +
+            "GROUP BY 1, 2";
+
+    private static final String INSERT =
+            "INSERT INTO previsions_stock (produit_id, stock, demande_journaliere, ecart_type, jours_couverture, " +
+            "stock_securite, point_commande, quantite_suggeree, date_calcul) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate lecture;
+
+    @Value("${app.forecast.threads:4}")
+    private int threads;
+    @Value("${app.forecast.window-days:90}")
+    private int fenetreJours;
+    @Value("${app.forecast.lead-time-days:7}")
+    private int delaiJours;
+    @Value("${app.forecast.review-days:30}")
+    private int revisionJours;
+    @Value("${app.forecast.service-level-z:1.65}")
+    private double z;
+
+    @Autowired
+    public PrevisionStockService(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.lecture = new TransactionTemplate(transactionManager);
+        this.lecture.setReadOnly(true);
+    }
+
+    public record Prevision(Long produitId, String nom, int stock, int seuilStockBas, double demandeJournaliere,
+                            double ecartType, Double joursCouverture, int stockSecurite, int pointCommande,
+                            int quantiteSuggeree, LocalDateTime dateCalcul) {
+    }
+
+    public record Calcul(int produits, int tranches, long dureeMs) {
+    }
+
+    private record Ligne(long produitId, int stock, double demande, double ecartType, Double couverture,
+                         int securite, int pointCommande, int quantite) {
+    }
+
+    // Produits les plus urgents d'abord ; aRecommander ne garde que ceux sous leur point de commande
+    public List<Prevision> getPrevisions(boolean aRecommander) {
+        return jdbcTemplate.query(
+                "SELECT f.*, p.nom, p.seuil_stock_bas FROM previsions_stock f JOIN produits p ON p.id = f.produit_id " +
+                (aRecommander ? "WHERE f.quantite_suggeree > 0 " : "") +
+                "ORDER BY f.jours_couverture ASC NULLS LAST, f.produit_id",
+                (rs, i) -> new Prevision(rs.getLong("produit_id"), rs.getString("nom"), rs.getInt("stock"),
+                        rs.getInt("seuil_stock_bas"), rs.getDouble("demande_journaliere"), rs.getDouble("ecart_type"),
+                        rs.getObject("jours_couverture", Double.class), rs.getInt("stock_securite"),
+                        rs.getInt("point_commande"), rs.getInt("quantite_suggeree"),
+                        rs.getTimestamp("date_calcul").toLocalDateTime()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialiser() {
+        Boolean vide = jdbcTemplate.queryForObject("SELECT NOT EXISTS (SELECT 1 FROM previsions_stock)", Boolean.class);
+        if (Boolean.TRUE.equals(vide)) calculer();
+    }
+
+    @Scheduled(cron = "${app.forecast.cron:0 0 4 * * *}")
+    public Calcul calculer() {
+        long t0 = System.currentTimeMillis();
+        Map<String, Object> bornes = jdbcTemplate.queryForMap("SELECT MIN(id) AS debut, MAX(id) AS fin FROM produits");
+        List<Ligne> lignes = new ArrayList<>();
+        int tranches = 0;
+        if (bornes.get("debut") != null) {
+            long debut = ((Number) bornes.get("debut")).longValue();
+            long fin = ((Number) bornes.get("fin")).longValue() + 1;
+            // Plus de tranches que de threads pour équilibrer les produits très actifs
+            int nombre = Math.max(1, threads) * 4;
+            long pas = Math.max(1, (fin - debut + nombre - 1) / nombre);
+            LocalDate premierJour = LocalDate.now().minusDays(fenetreJours);
+
+            List<CompletableFuture<List<Ligne>>> partiels = new ArrayList<>();
+            try (ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads))) {
+                for (long borne = debut; borne < fin; borne += pas) {
+                    long de = borne;
+                    long a = Math.min(fin, borne + pas);
+                    partiels.add(CompletableFuture.supplyAsync(() -> calculerTranche(de, a, premierJour), executor));
+                }
+                for (CompletableFuture<List<Ligne>> partiel : partiels) lignes.addAll(partiel.join());
+            }
+            tranches = partiels.size();
+        }
+
+        // Remplacement complet dans une seule transaction : l'endpoint ne voit jamais une table à moitié écrite
+        Timestamp maintenant = Timestamp.valueOf(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM previsions_stock");
+            jdbcTemplate.batchUpdate(INSERT, lignes, 1000, (ps, l) -> {
+                ps.setLong(1, l.produitId());
+                ps.setInt(2, l.stock());
+                ps.setDouble(3, l.demande());
+                ps.setDouble(4, l.ecartType());
+                ps.setObject(5, l.couverture());
+                ps.setInt(6, l.securite());
+                ps.setInt(7, l.pointCommande());
+                ps.setInt(8, l.quantite());
+                ps.setTimestamp(9, maintenant);
+            });
+        });
+
+        long duree = System.currentTimeMillis() - t0;
+        log.info("Prévisions de stock calculées : {} produit(s), {} tranche(s) en {} ms", lignes.size(), tranches, duree);
+        return new Calcul(lignes.size(), tranches, duree);
+    }
+
+    private List<Ligne> calculerTranche(long debut, long fin, LocalDate premierJour) {
+        Timestamp depuis = Timestamp.valueOf(premierJour.atStartOfDay());
+        Map<Long, Integer> stocks = new HashMap<>();
+        Map<Long, double[]> ventes = new HashMap<>();
+        Map<Long, double[]> sorties = new HashMap<>();
+        lecture.executeWithoutResult(status -> {
+            jdbcTemplate.query("SELECT id, stock FROM produits WHERE id >= ? AND id < ?",
+                    rs -> { stocks.put(rs.getLong(1), rs.getInt(2)); }, debut, fin);
+            jdbcTemplate.query(VENTES, rs -> { cumuler(ventes, rs.getLong(1), rs.getDate(2), rs.getLong(3), premierJour); },
+                    depuis, debut, fin);
+            jdbcTemplate.query(SORTIES, rs -> { cumuler(sorties, rs.getLong(1), rs.getDate(2), rs.getLong(3), premierJour); },
+                    depuis, debut, fin);
+        });
+
+        List<Ligne> lignes = new ArrayList<>(stocks.size());
+        for (Map.Entry<Long, Integer> e : stocks.entrySet()) {
+            lignes.add(prevoir(e.getKey(), e.getValue(), ventes.get(e.getKey()), sorties.get(e.getKey())));
+        }
+        return lignes;
+    }
+
+    private void cumuler(Map<Long, double[]> series, long produitId, Date jour, long quantite, LocalDate premierJour) {
+        int indice = (int) ChronoUnit.DAYS.between(premierJour, jour.toLocalDate());
+        if (indice < 0 || indice > fenetreJours) return;
+        series.computeIfAbsent(produitId, k -> new double[fenetreJours + 1])[indice] += quantite;
+    }
+
+    // Demande d'un jour : ventes des commandes non annulées plus retraits manuels, deux sources disjointes
+    private Ligne prevoir(long produitId, int stock, double[] ventes, double[] sorties) {
+        int jours = fenetreJours + 1;
+        double somme = 0, sommeCarres = 0;
+        for (int i = 0; i < jours; i++) {
+            double d = (ventes != null ? ventes[i] : 0) + (sorties != null ? sorties[i] : 0);
+            somme += d;
+            sommeCarres += d * d;
+        }
+        double moyenne = somme / jours;
+        double ecartType = Math.sqrt(Math.max(0, sommeCarres / jours - moyenne * moyenne));
+
+        int securite = (int) Math.ceil(z * ecartType * Math.sqrt(delaiJours));
+        int pointCommande = (int) Math.ceil(moyenne * delaiJours) + securite;
+        // Recomplètement jusqu'à couvrir le délai et la période de révision
+        int niveauCible = (int) Math.ceil(moyenne * (delaiJours + revisionJours)) + securite;
+        int quantite = moyenne > 0 && stock <= pointCommande ? Math.max(0, niveauCible - stock) : 0;
+        Double couverture = moyenne > 0 ? Math.round(stock / moyenne * 10) / 10.0 : null;
+        return new Ligne(produitId, stock, moyenne, ecartType, couverture, securite, pointCommande, quantite);
+    }
+}
@@ -0,0 +1,303 @@
+package mg.sarobidy.ventecosmetique.service;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import jakarta.persistence.EntityManagerFactory;
+import mg.sarobidy.ventecosmetique.dto.ImportReport;
+import mg.sarobidy.ventecosmetique.entity.Produit;
+import mg.sarobidy.ventecosmetique.entity.Stock;
+import mg.sarobidy.ventecosmetique.event.CatalogueModifieEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Service
+public class ProduitImportService {
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_ERREURS_RAPPORTEES = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public ProduitImportService(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Ligne du fichier après validation ; la clé d'upsert est le couple (nom, marque).
+    private record ProduitLigne(long ligne, String nom, String marque, BigDecimal prix, int stock, int seuilStockBas,
+                                Long categorieId, String description, String ingredients, String dateExpiration) {
+        String cle() {
+            return cleDe(nom, marque);
+        }
+    }
+
+    // Produit déjà en base, avec ce qui détermine son prix effectif
+    private record Existant(long id, BigDecimal prix, Long categorieId) {
+    }
+
+    private record Resultat(ProduitLigne produit, ImportReport.LigneErreur erreur) {
+    }
+
+    private static String cleDe(String nom, String marque) {
+        return nom + '\u0000' + (marque != null ? marque : "");
+    }
+
+    public ImportReport importProducts(InputStream input) throws IOException {
+        Set<Long> categorieIds = new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM categories", Long.class));
+        List<ImportReport.LigneErreur> erreurs = new ArrayList<>();
+        int lignesLues = 0;
+        int nombreErreurs = 0;
+        int crees = 0;
+        int misAJour = 0;
+        Set<Long> produitIds = new HashSet<>();
+        Set<Long> tarifsModifies = new HashSet<>();
+
+        try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+             CSVReader csvReader = new CSVReader(reader)) {
+            String[] header = csvReader.readNext();
+            if (header == null) throw new IllegalArgumentException("Fichier CSV vide");
+            Map<String, Integer> colonnes = indexColonnes(header);
+            for (String requise : List.of("nom", "prix", "stock")) {
+                if (!colonnes.containsKey(requise)) {
+                    throw new IllegalArgumentException("Colonne obligatoire manquante : " + requise);
+                }
+            }
+
+            List<Map.Entry<Long, String[]>> chunk = new ArrayList<>(CHUNK_SIZE);
+            String[] ligne;
+            while (true) {
+                ligne = csvReader.readNext();
+                if (ligne != null) {
+                    lignesLues++;
+                    chunk.add(Map.entry(csvReader.getLinesRead(), ligne));
+                }
+                if (chunk.size() == CHUNK_SIZE || (ligne == null && !chunk.isEmpty())) {
+                    // Validation en parallèle, l'écriture reste séquentielle (un lot JDBC par chunk)
+                    List<Resultat> resultats = chunk.parallelStream()
+                            .map(e -> valider(e.getKey(), e.getValue(), colonnes, categorieIds))
+                            .toList();
+                    List<ProduitLigne> valides = new ArrayList<>();
+                    for (Resultat resultat : resultats) {
+                        if (resultat.erreur() != null) {
+                            nombreErreurs++;
+                            if (erreurs.size() < MAX_ERREURS_RAPPORTEES) erreurs.add(resultat.erreur());
+                        } else {
+                            valides.add(resultat.produit());
+                        }
+                    }
+                    try {
+                        int[] compte = transactionTemplate.execute(status -> persister(valides, produitIds, tarifsModifies));
+                        crees += compte[0];
+                        misAJour += compte[1];
+                    } catch (RuntimeException e) {
+                        nombreErreurs += valides.size();
+                        for (ProduitLigne produit : valides) {
+                            if (erreurs.size() < MAX_ERREURS_RAPPORTEES) {
+                                erreurs.add(new ImportReport.LigneErreur(produit.ligne(), "Lot rejeté : " + e.getMessage()));
+                            }
+                        }
+                    }
+                    chunk.clear();
+                }
+                if (ligne == null) break;
+            }
+        } catch (CsvValidationException e) {
+            throw new IllegalArgumentException("Fichier CSV invalide : " + e.getMessage());
+        } finally {
+            // Écritures JDBC directes, invisibles pour Hibernate : les produits et stocks en cache sont périmés
+            entityManagerFactory.getCache().evict(Produit.class);
+            entityManagerFactory.getCache().evict(Stock.class);
+            // Instantané du catalogue et vitrine : les produits importés ont changé ; ceux dont le prix ou la
+            // catégorie a changé sont aussi retarifés dans les paniers
+            if (!tarifsModifies.isEmpty()) eventPublisher.publishEvent(CatalogueModifieEvent.prix(tarifsModifies));
+            produitIds.removeAll(tarifsModifies);
+            if (!produitIds.isEmpty()) eventPublisher.publishEvent(CatalogueModifieEvent.of(produitIds));
+        }
+
+        return new ImportReport(lignesLues, crees, misAJour, nombreErreurs, erreurs);
+    }
+
+    private Map<String, Integer> indexColonnes(String[] header) {
+        Map<String, Integer> colonnes = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            // Le BOM UTF-8 éventuel colle au premier en-tête
+            colonnes.put(header[i].replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+        }
+        return colonnes;
+    }
+
+    private Resultat valider(long numero, String[] ligne, Map<String, Integer> colonnes, Set<Long> categorieIds) {
+        try {
+            String nom = valeur(ligne, colonnes, "nom");
+            if (nom == null) throw new IllegalArgumentException("Le nom est requis");
+
+            String prixTexte = valeur(ligne, colonnes, "prix");
+            if (prixTexte == null) throw new IllegalArgumentException("Le prix est requis");
+            BigDecimal prix = new BigDecimal(prixTexte.replace(',', '.'));
+            if (prix.signum() <= 0) throw new IllegalArgumentException("Prix invalide : " + prixTexte);
+
+            int stock = entier(valeur(ligne, colonnes, "stock"), "stock");
+            String seuilTexte = valeur(ligne, colonnes, "seuilstockbas");
+            int seuil = seuilTexte != null ? entier(seuilTexte, "seuilStockBas") : 0;
+
+            String categorieTexte = valeur(ligne, colonnes, "categorieid");
+            Long categorieId = null;
+            if (categorieTexte != null) {
+                categorieId = Long.valueOf(categorieTexte);
+                if (!categorieIds.contains(categorieId)) {
+                    throw new IllegalArgumentException("Categorie inconnue : " + categorieId);
+                }
+            }
+
+            return new Resultat(new ProduitLigne(numero, nom, valeur(ligne, colonnes, "marque"), prix, stock, seuil,
+                    categorieId, valeur(ligne, colonnes, "description"), valeur(ligne, colonnes, "ingredients"),
+                    valeur(ligne, colonnes, "dateexpiration")), null);
+        } catch (NumberFormatException e) {
+            return new Resultat(null, new ImportReport.LigneErreur(numero, "Valeur numérique invalide : " + e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return new Resultat(null, new ImportReport.LigneErreur(numero, e.getMessage()));
+        }
+    }
+
+    private String valeur(String[] ligne, Map<String, Integer> colonnes, String nom) {
+        Integer index = colonnes.get(nom);
+        if (index == null || index >= ligne.length) return null;
+        String valeur = ligne[index].trim();
+        return valeur.isEmpty() ? null : valeur;
+    }
+
+    private int entier(String valeur, String champ) {
+        if (valeur == null) throw new IllegalArgumentException("Le champ " + champ + " est requis");
+        int entier = Integer.parseInt(valeur);
+        if (entier < 0) throw new IllegalArgumentException("Le champ " + champ + " ne peut pas être négatif");
+        return entier;
+    }
+
+    private int[] persister(List<ProduitLigne> lignes, Set<Long> produitIds, Set<Long> tarifsModifies) {
+        if (lignes.isEmpty()) return new int[]{0, 0};
+
+        // La dernière occurrence d'un produit dans le lot l'emporte
+        Map<String, ProduitLigne> parCle = new LinkedHashMap<>();
+        for (ProduitLigne ligne : lignes) parCle.put(ligne.cle(), ligne);
+
+        Map<String, Existant> existants = chercher(parCle.values());
+        List<ProduitLigne> nouveaux = new ArrayList<>();
+        List<ProduitLigne> modifies = new ArrayList<>();
+        // Prix, ou catégorie (promotions applicables), différents de ceux en base
+        List<Long> retarifes = new ArrayList<>();
+        for (ProduitLigne ligne : parCle.values()) {
+            Existant existant = existants.get(ligne.cle());
+            if (existant == null) {
+                nouveaux.add(ligne);
+                continue;
+            }
+            modifies.add(ligne);
+            if (existant.prix().compareTo(ligne.prix()) != 0
+                    || (ligne.categorieId() != null && !ligne.categorieId().equals(existant.categorieId()))) {
+                retarifes.add(existant.id());
+            }
+        }
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO produits (nom, marque, prix, stock, seuil_stock_bas, categorie_id, description, ingredients, date_expiration) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                nouveaux, nouveaux.size(), (ps, p) -> {
+                    ps.setString(1, p.nom());
+                    ps.setString(2, p.marque());
+                    ps.setBigDecimal(3, p.prix());
+                    ps.setInt(4, p.stock());
+                    ps.setInt(5, p.seuilStockBas());
+                    ps.setObject(6, p.categorieId());
+                    ps.setString(7, p.description());
+                    ps.setString(8, p.ingredients());
+                    ps.setString(9, p.dateExpiration());
+                });
+
+        jdbcTemplate.batchUpdate(
+                "UPDATE produits SET prix = ?, stock = ?, seuil_stock_bas = ?, categorie_id = COALESCE(?, categorie_id), " +
+                "description = COALESCE(?, description), ingredients = COALESCE(?, ingredients), " +
+                "date_expiration = COALESCE(?, date_expiration) WHERE id = ?",
+                modifies, modifies.size(), (ps, p) -> {
+                    ps.setBigDecimal(1, p.prix());
+                    ps.setInt(2, p.stock());
+                    ps.setInt(3, p.seuilStockBas());
+                    ps.setObject(4, p.categorieId());
+                    ps.setString(5, p.description());
+                    ps.setString(6, p.ingredients());
+                    ps.setString(7, p.dateExpiration());
+                    ps.setLong(8, existants.get(p.cle()).id());
+                });
+
+        Map<String, Existant> ids = nouveaux.isEmpty() ? existants : chercher(parCle.values());
+        for (Existant existant : ids.values()) produitIds.add(existant.id());
+        tarifsModifies.addAll(retarifes);
+        List<ProduitLigne> toutes = new ArrayList<>(parCle.values());
+
+        int[][] stocksModifies = jdbcTemplate.batchUpdate(
+                "UPDATE stocks SET quantite = ?, seuil_bas = ? WHERE produit_id = ?",
+                toutes, toutes.size(), (ps, p) -> {
+                    ps.setInt(1, p.stock());
+                    ps.setInt(2, p.seuilStockBas());
+                    ps.setLong(3, ids.get(p.cle()).id());
+                });
+        List<ProduitLigne> sansStock = new ArrayList<>();
+        for (int i = 0; i < toutes.size(); i++) {
+            if (stocksModifies[0][i] == 0) sansStock.add(toutes.get(i));
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO stocks (produit_id, quantite, seuil_bas) VALUES (?, ?, ?)",
+                sansStock, sansStock.size(), (ps, p) -> {
+                    ps.setLong(1, ids.get(p.cle()).id());
+                    ps.setInt(2, p.stock());
+                    ps.setInt(3, p.seuilStockBas());
+                });
+
+        Timestamp maintenant = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO historique_stocks (produit_id, action, quantity, date, stock_apres) VALUES (?, ?, ?, ?, ?)",
+                toutes, toutes.size(), (ps, p) -> {
+                    ps.setLong(1, ids.get(p.cle()).id());
+                    ps.setString(2, existants.containsKey(p.cle()) ? "Modification par import" : "Ajout par import");
+                    ps.setInt(3, p.stock());
+                    ps.setTimestamp(4, maintenant);
+                    ps.setInt(5, p.stock());
+                });
+
+        return new int[]{nouveaux.size(), modifies.size()};
+    }
+
+    private Map<String, Existant> chercher(Collection<ProduitLigne> lignes) {
+        Set<String> noms = new HashSet<>();
+        for (ProduitLigne ligne : lignes) noms.add(ligne.nom());
+
+        Map<String, Existant> existants = new HashMap<>();
+        namedJdbcTemplate.query("SELECT id, nom, marque, prix, categorie_id FROM produits WHERE nom IN (:noms) ORDER BY id",
+                Map.of("noms", noms),
+                rs -> {
+                    existants.put(cleDe(rs.getString("nom"), rs.getString("marque")), new Existant(rs.getLong("id"),
+                            rs.getBigDecimal("prix"), rs.getObject("categorie_id", Long.class)));
+                });
+        return existants;
+    }
+}
@@ -3,12 +3,15 @@ package mg.sarobidy.ventecosmetique.service;
 import mg.sarobidy.ventecosmetique.entity.HistoriqueStock;
 import mg.sarobidy.ventecosmetique.entity.Produit;
 import mg.sarobidy.ventecosmetique.entity.Stock;
+import mg.sarobidy.ventecosmetique.event.CatalogueModifieEvent;
 import mg.sarobidy.ventecosmetique.repository.HistoriqueStockRepository;
 import mg.sarobidy.ventecosmetique.repository.ProduitRepository;
 import mg.sarobidy.ventecosmetique.repository.StockRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -17,6 +20,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 @Service
@@ -24,11 +28,14 @@ public class ProduitService {
     @Autowired private ProduitRepository produitRepository;
     @Autowired private StockRepository stockRepository;
     @Autowired private HistoriqueStockRepository historiqueStockRepository;
+    @Autowired private ApplicationEventPublisher eventPublisher;
 
+    @Transactional(readOnly = true)
     public List<Produit> getAllProducts() {
         return produitRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Produit getProductById(Long id) {
         return produitRepository.findById(id).orElseThrow(() -> new RuntimeException("Produit not found"));
     }
@@ -51,14 +58,17 @@ public class ProduitService {
         HistoriqueStock historique = new HistoriqueStock();
         historique.setAction("ajout du produit");
         historique.setQuantity(savedProduit.getStock());
+        historique.setStockApres(savedProduit.getStock());
         historique.setDate(LocalDateTime.now());
         historique.setProduit(savedProduit);
         historiqueStockRepository.save(historique);
+        eventPublisher.publishEvent(CatalogueModifieEvent.of(savedProduit.getId()));
         return savedProduit;
     }
 
     public Produit updateProduct(Long id, Produit produitDetails, MultipartFile image) throws IOException {
         Produit produit = getProductById(id);
+        boolean prixModifies = tarifsDifferents(produit, produitDetails);
         produit.setNom(produitDetails.getNom());
         produit.setPrix(produitDetails.getPrix());
         produit.setPrixOriginal(produitDetails.getPrixOriginal());
@@ -89,17 +99,31 @@ public class ProduitService {
         HistoriqueStock historique = new HistoriqueStock();
         historique.setAction("Modification de produit");
         historique.setQuantity(updatedProduit.getStock());
+        historique.setStockApres(updatedProduit.getStock());
         historique.setDate(LocalDateTime.now());
         historique.setProduit(updatedProduit);
         historiqueStockRepository.save(historique);
 
         stockRepository.save(stock);
 
+        eventPublisher.publishEvent(prixModifies ? CatalogueModifieEvent.prix(updatedProduit.getId())
+                : CatalogueModifieEvent.of(updatedProduit.getId()));
         return updatedProduit;
     }
 
+    // Prix de base, catégorie ou marque (promotions applicables) : ce qui change le prix effectif
+    private static boolean tarifsDifferents(Produit avant, Produit apres) {
+        boolean prix = avant.getPrix() == null || apres.getPrix() == null
+                ? avant.getPrix() != apres.getPrix()
+                : avant.getPrix().compareTo(apres.getPrix()) != 0;
+        Long categorieAvant = avant.getCategorie() != null ? avant.getCategorie().getId() : null;
+        Long categorieApres = apres.getCategorie() != null ? apres.getCategorie().getId() : null;
+        return prix || !Objects.equals(categorieAvant, categorieApres) || !Objects.equals(avant.getMarque(), apres.getMarque());
+    }
+
     public void deleteProduct(Long id) {
         produitRepository.deleteById(id);
         stockRepository.findByProduitId(id).ifPresent(stockRepository::delete);
+        eventPublisher.publishEvent(CatalogueModifieEvent.of(id));
     }
 }
\ No newline at end of file
@@ -0,0 +1,119 @@
+package mg.sarobidy.ventecosmetique.service;
+
+import jakarta.annotation.PreDestroy;
+import mg.sarobidy.ventecosmetique.entity.Promotion;
+import mg.sarobidy.ventecosmetique.event.CatalogueModifieEvent;
+import mg.sarobidy.ventecosmetique.repository.PromotionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+// Réveille l'application uniquement aux instants où une promotion démarre ou se termine :
+// chaque borne est placée dans une DelayQueue consommée par un thread dédié.
+@Component
+public class PromotionScheduler {
+    private static final Logger log = LoggerFactory.getLogger(PromotionScheduler.class);
+    private static final long DELAI_REESSAI_MILLIS = 30_000;
+
+    @Autowired private PromotionRepository promotionRepository;
+    @Autowired private TarificationService tarificationService;
+    @Autowired private ApplicationEventPublisher eventPublisher;
+
+    private final DelayQueue<Borne> bornes = new DelayQueue<>();
+    private Thread worker;
+
+    private record Borne(long instantMillis, Long promotionId, Promotion.Statut nouveauStatut)
+            implements Delayed {
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(instantMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(instantMillis, ((Borne) other).instantMillis);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        LocalDateTime maintenant = LocalDateTime.now();
+        promotionRepository.reconcileStatuts(maintenant);
+        promotionRepository.findByDateFinAfter(maintenant).forEach(this::schedule);
+
+        worker = Thread.ofPlatform().daemon().name("promotion-scheduler").start(this::run);
+    }
+
+    public void schedule(Promotion promotion) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        if (promotion.getDateDebut().isAfter(maintenant)) {
+            bornes.add(new Borne(millis(promotion.getDateDebut()), promotion.getId(), Promotion.Statut.ACTIVE));
+        }
+        if (promotion.getDateFin().isAfter(maintenant)) {
+            bornes.add(new Borne(millis(promotion.getDateFin()), promotion.getId(), Promotion.Statut.TERMINEE));
+        }
+    }
+
+    public void cancel(Long promotionId) {
+        bornes.removeIf(borne -> borne.promotionId().equals(promotionId));
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Borne> echues = new ArrayList<>();
+            try {
+                echues.add(bornes.take());
+                // Les bornes simultanées sont traitées en un seul passage
+                bornes.drainTo(echues);
+                fire(echues);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                // Base indisponible par exemple : les bornes sont retentées plus tard (traitement idempotent)
+                log.error("Échec du traitement des bornes de promotion, nouvel essai dans {} s", DELAI_REESSAI_MILLIS / 1000, e);
+                long reessai = System.currentTimeMillis() + DELAI_REESSAI_MILLIS;
+                echues.forEach(borne -> bornes.add(new Borne(reessai, borne.promotionId(), borne.nouveauStatut())));
+            }
+        }
+    }
+
+    private void fire(List<Borne> echues) {
+        Map<Promotion.Statut, Set<Long>> parStatut = new EnumMap<>(Promotion.Statut.class);
+        Set<Long> promotionIds = new HashSet<>();
+        for (Borne borne : echues) {
+            parStatut.computeIfAbsent(borne.nouveauStatut(), s -> new HashSet<>()).add(borne.promotionId());
+            promotionIds.add(borne.promotionId());
+        }
+        parStatut.forEach((statut, ids) -> promotionRepository.updateStatut(ids, statut));
+
+        // Une promotion de catégorie ou de marque rafraîchit une seule frise mais touche tous ses produits
+        Set<Long> produitIds = new HashSet<>();
+        for (Promotion promotion : promotionRepository.findAllById(promotionIds)) {
+            tarificationService.refresh(promotion);
+            produitIds.addAll(tarificationService.produitsConcernes(promotion));
+        }
+
+        log.info("Promotions {} : {} produit(s) concerné(s)", parStatut, produitIds.size());
+        eventPublisher.publishEvent(CatalogueModifieEvent.promotions(produitIds));
+    }
+
+    private static long millis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) worker.interrupt();
+    }
+}
@@ -2,66 +2,162 @@ package mg.sarobidy.ventecosmetique.service;
 
 import mg.sarobidy.ventecosmetique.entity.Promotion;
 import mg.sarobidy.ventecosmetique.entity.Produit;
+import mg.sarobidy.ventecosmetique.event.CatalogueModifieEvent;
+import mg.sarobidy.ventecosmetique.repository.CategorieRepository;
 import mg.sarobidy.ventecosmetique.repository.ProduitRepository;
+import mg.sarobidy.ventecosmetique.repository.PromotionProduitRepository;
 import mg.sarobidy.ventecosmetique.repository.PromotionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class PromotionService {
     @Autowired private PromotionRepository promotionRepository;
     @Autowired
     private ProduitRepository produitRepository;
+    @Autowired private CategorieRepository categorieRepository;
+    @Autowired private PromotionProduitRepository promotionProduitRepository;
+    @Autowired private TarificationService tarificationService;
+    @Autowired private PromotionScheduler promotionScheduler;
+    @Autowired private ApplicationEventPublisher eventPublisher;
 
+    @Transactional(readOnly = true)
     public List<Promotion> getAllPromotions() {
         return promotionRepository.findAll();
     }
 
-    public List<Promotion> getActivePromotions() {
-        return promotionRepository.findByDateFinAfter(LocalDateTime.now());
-    }
-
+    @Transactional
     public Promotion addPromotion(Long productId, double reductionPourcentage, LocalDateTime dateDebut, LocalDateTime dateFin) {
         Produit produit = produitRepository.findById(productId)
                 .orElseThrow(() -> new IllegalArgumentException("Produit avec l'ID " + productId + " non trouvé"));
+        validerPeriode(reductionPourcentage, dateDebut, dateFin);
 
-        Promotion promotion = new Promotion();
+        // Le prix de base du produit n'est plus modifié : la réduction s'applique à la lecture
+        Promotion promotion = nouvellePromotion(Promotion.Cible.PRODUIT, reductionPourcentage, dateDebut, dateFin);
         promotion.setProduit(produit);
+        return enregistrer(promotion);
+    }
 
-        produit.setPrixOriginal(produit.getPrix());
+    // Une seule règle pour toute une catégorie, une marque ou un ensemble de produits :
+    // catégorie et marque sont résolues à la lecture du prix, la liste est matérialisée en un INSERT ... SELECT.
+    @Transactional
+    public Promotion addBulkPromotion(Promotion.Cible cible, Long categorieId, String marque, Collection<Long> productIds,
+                                      double reductionPourcentage, LocalDateTime dateDebut, LocalDateTime dateFin) {
+        if (cible == null) throw new IllegalArgumentException("La cible de la promotion est requise");
+        if (cible == Promotion.Cible.PRODUIT) {
+            if (productIds == null || productIds.size() != 1) {
+                throw new IllegalArgumentException("Une promotion produit vise exactement un produit");
+            }
+            return addPromotion(productIds.iterator().next(), reductionPourcentage, dateDebut, dateFin);
+        }
+        validerPeriode(reductionPourcentage, dateDebut, dateFin);
+
+        Promotion promotion = nouvellePromotion(cible, reductionPourcentage, dateDebut, dateFin);
+        switch (cible) {
+            case CATEGORIE -> {
+                if (categorieId == null) throw new IllegalArgumentException("La catégorie est requise");
+                promotion.setCategorie(categorieRepository.findById(categorieId)
+                        .orElseThrow(() -> new IllegalArgumentException("Catégorie avec l'ID " + categorieId + " non trouvée")));
+            }
+            case MARQUE -> {
+                if (marque == null || marque.isBlank()) throw new IllegalArgumentException("La marque est requise");
+                promotion.setMarque(marque.trim());
+            }
+            case LISTE -> {
+                if (productIds == null || productIds.isEmpty()) {
+                    throw new IllegalArgumentException("La liste de produits est vide");
+                }
+                Promotion saved = promotionRepository.save(promotion);
+                int inseres = promotionProduitRepository.insertForProduits(saved.getId(), new HashSet<>(productIds));
+                if (inseres == 0) throw new IllegalArgumentException("Aucun des produits indiqués n'existe");
+                return publier(saved);
+            }
+        }
+        return enregistrer(promotion);
+    }
 
-        BigDecimal prixActuel = produit.getPrix();
-        BigDecimal reduction = BigDecimal.valueOf(reductionPourcentage / 100);
-        BigDecimal prixReduit = prixActuel.multiply(BigDecimal.ONE.subtract(reduction));
+    @Transactional
+    public void deletePromotion(Long id) {
+        Promotion promotion = promotionRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Promotion avec l'ID " + id + " non trouvée"));
 
-        produit.setPrix(prixReduit);
+        // Les produits d'une liste sont relevés avant la suppression de leurs lignes
+        Set<Long> produitIds = tarificationService.produitsConcernes(promotion);
+        promotionProduitRepository.deleteByPromotion(id);
+        promotionRepository.deleteById(id);
+
+        apresValidation(() -> {
+            promotionScheduler.cancel(id);
+            if (promotion.cibleEffective() == Promotion.Cible.LISTE) {
+                produitIds.forEach(tarificationService::refreshProduit);
+            } else {
+                tarificationService.refresh(promotion);
+            }
+        });
+        eventPublisher.publishEvent(CatalogueModifieEvent.promotions(produitIds));
+    }
 
+    private Promotion nouvellePromotion(Promotion.Cible cible, double reductionPourcentage,
+                                        LocalDateTime dateDebut, LocalDateTime dateFin) {
+        Promotion promotion = new Promotion();
+        promotion.setCible(cible);
         promotion.setReductionPourcentage(reductionPourcentage);
         promotion.setDateDebut(dateDebut);
         promotion.setDateFin(dateFin);
-
-        produitRepository.save(produit);
-
-        return promotionRepository.save(promotion);
+        promotion.setStatut(promotion.statutA(LocalDateTime.now()));
+        return promotion;
     }
 
-    public void deletePromotion(Long id) {
-        Promotion promotion = promotionRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Promotion avec l'ID " + id + " non trouvée"));
+    private Promotion enregistrer(Promotion promotion) {
+        return publier(promotionRepository.save(promotion));
+    }
 
-        Produit produit = promotion.getProduit();
+    private Promotion publier(Promotion promotion) {
+        apresValidation(() -> {
+            tarificationService.refresh(promotion);
+            promotionScheduler.schedule(promotion);
+        });
+        eventPublisher.publishEvent(CatalogueModifieEvent.promotions(tarificationService.produitsConcernes(promotion)));
+        return promotion;
+    }
 
-        if (produit.getPrixOriginal() != null) {
-            produit.setPrix(produit.getPrixOriginal());
-            produit.setPrixOriginal(BigDecimal.valueOf(0));
+    // Index des prix et file des bornes ne sont mis à jour qu'une fois la promotion validée, avant les
+    // écouteurs AFTER_COMMIT de CatalogueModifieEvent (paniers, vitrine) qui lisent les prix effectifs
+    private static void apresValidation(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
         }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 
-        produitRepository.save(produit);
-
-        promotionRepository.deleteById(id);
+    private void validerPeriode(double reductionPourcentage, LocalDateTime dateDebut, LocalDateTime dateFin) {
+        if (reductionPourcentage <= 0 || reductionPourcentage > 100) {
+            throw new IllegalArgumentException("La réduction doit être comprise entre 0 et 100 %");
+        }
+        if (!dateFin.isAfter(dateDebut)) {
+            throw new IllegalArgumentException("La date de fin doit être postérieure à la date de début");
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,66 @@
+package mg.sarobidy.ventecosmetique.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+// Frise des réductions d'un produit : les bornes de toutes ses promotions découpent le temps
+// en segments, chacun portant la meilleure réduction applicable. Les promotions qui se
+// chevauchent ne se cumulent pas. Lecture en O(log n) par recherche dichotomique ; la frise
+// est immuable et reconstruite quand les promotions du produit changent.
+public final class PromotionTimeline {
+    public static final PromotionTimeline EMPTY = new PromotionTimeline(new long[0], new double[0]);
+
+    public record Intervalle(long debut, long fin, double reduction) {
+    }
+
+    // reductions[i] s'applique sur [bornes[i], bornes[i + 1])
+    private final long[] bornes;
+    private final double[] reductions;
+
+    private PromotionTimeline(long[] bornes, double[] reductions) {
+        this.bornes = bornes;
+        this.reductions = reductions;
+    }
+
+    public static PromotionTimeline of(List<Intervalle> intervalles) {
+        TreeSet<Long> points = new TreeSet<>();
+        for (Intervalle intervalle : intervalles) {
+            if (intervalle.fin() > intervalle.debut()) {
+                points.add(intervalle.debut());
+                points.add(intervalle.fin());
+            }
+        }
+        if (points.isEmpty()) return EMPTY;
+
+        long[] bornes = points.stream().mapToLong(Long::longValue).toArray();
+        double[] reductions = new double[bornes.length - 1];
+        for (Intervalle intervalle : intervalles) {
+            if (intervalle.fin() <= intervalle.debut()) continue;
+            int debut = Arrays.binarySearch(bornes, intervalle.debut());
+            int fin = Arrays.binarySearch(bornes, intervalle.fin());
+            for (int i = debut; i < fin; i++) {
+                reductions[i] = Math.max(reductions[i], intervalle.reduction());
+            }
+        }
+        return new PromotionTimeline(bornes, reductions);
+    }
+
+    public double reductionAt(long instant) {
+        int i = Arrays.binarySearch(bornes, instant);
+        if (i < 0) i = -i - 2;
+        if (i < 0 || i >= reductions.length) return 0;
+        return reductions[i];
+    }
+
+    // Prochaine borne strictement postérieure à l'instant donné, ou Long.MAX_VALUE
+    public long nextBoundaryAfter(long instant) {
+        int i = Arrays.binarySearch(bornes, instant);
+        i = i < 0 ? -i - 1 : i + 1;
+        return i < bornes.length ? bornes[i] : Long.MAX_VALUE;
+    }
+
+    public boolean isEmpty() {
+        return bornes.length == 0;
+    }
+}
@@ -0,0 +1,74 @@
+package mg.sarobidy.ventecosmetique.service;
+
+import jakarta.persistence.Tuple;
+import mg.sarobidy.ventecosmetique.dto.PromotionActive;
+import mg.sarobidy.ventecosmetique.entity.Promotion;
+import mg.sarobidy.ventecosmetique.event.CatalogueModifieEvent;
+import mg.sarobidy.ventecosmetique.repository.PromotionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Promotions en cours servies depuis la mémoire : un instantané immuable, reconstruit par une seule
+// requête de projection et remplacé d'un bloc quand une promotion ou un produit affiché change.
+@Service
+public class PromotionVitrineService {
+    @Autowired private PromotionRepository promotionRepository;
+    @Autowired private TarificationService tarificationService;
+
+    private record Instantane(List<PromotionActive> promotions, Set<Long> produitIds) {
+    }
+
+    private final AtomicReference<Instantane> instantane = new AtomicReference<>();
+
+    public List<PromotionActive> getActivePromotions() {
+        Instantane courant = instantane.get();
+        return courant != null ? courant.promotions() : reconstruire().promotions();
+    }
+
+    // Une modification de stock ou d'avis ne reconstruit la vitrine que si le produit y figure.
+    // Après validation uniquement : une promotion annulée par un rollback n'apparaît jamais en vitrine
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogueModifie(CatalogueModifieEvent event) {
+        Instantane courant = instantane.get();
+        if (courant == null) return;
+        if (event.promotionsModifiees() || !Collections.disjoint(courant.produitIds(), event.produitIds())) {
+            reconstruire();
+        }
+    }
+
+    // Les reconstructions sont sérialisées pour qu'un instantané plus ancien n'écrase jamais un plus récent
+    private synchronized Instantane reconstruire() {
+        LocalDateTime maintenant = LocalDateTime.now();
+        List<PromotionActive> promotions = new ArrayList<>();
+        Set<Long> produitIds = new HashSet<>();
+        for (Tuple t : promotionRepository.findVitrineAt(maintenant)) {
+            Long produitId = t.get("produitId", Long.class);
+            PromotionActive.ProduitVitrine produit = null;
+            if (produitId != null) {
+                Long categorieId = t.get("categorieId", Long.class);
+                String marque = t.get("marque", String.class);
+                BigDecimal prix = t.get("prix", BigDecimal.class);
+                produit = new PromotionActive.ProduitVitrine(produitId,
+                        t.get("nom", String.class), marque, prix, t.get("prixOriginal", BigDecimal.class),
+                        tarificationService.prixPromo(produitId, categorieId, marque, prix, maintenant),
+                        t.get("imagePath", String.class), t.get("stock", Integer.class), categorieId,
+                        t.get("noteMoyenne", Double.class), t.get("nombreAvis", Long.class));
+                produitIds.add(produitId);
+            }
+            promotions.add(new PromotionActive(t.get("id", Long.class), t.get("cible", Promotion.Cible.class),
+                    t.get("reductionPourcentage", Double.class), t.get("dateDebut", LocalDateTime.class),
+                    t.get("dateFin", LocalDateTime.class), t.get("cibleCategorieId", Long.class),
+                    t.get("cibleMarque", String.class), produit));
+        }
+
+        Instantane nouveau = new Instantane(List.copyOf(promotions), Set.copyOf(produitIds));
+        instantane.set(nouveau);
+        return nouveau;
+    }
+}
@@ -3,10 +3,12 @@ package mg.sarobidy.ventecosmetique.service;
 import mg.sarobidy.ventecosmetique.entity.HistoriqueStock;
 import mg.sarobidy.ventecosmetique.entity.Produit;
 import mg.sarobidy.ventecosmetique.entity.Stock;
+import mg.sarobidy.ventecosmetique.event.CatalogueModifieEvent;
 import mg.sarobidy.ventecosmetique.repository.HistoriqueStockRepository;
 import mg.sarobidy.ventecosmetique.repository.ProduitRepository;
 import mg.sarobidy.ventecosmetique.repository.StockRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -17,6 +19,7 @@ public class StockService {
     @Autowired private StockRepository stockRepository;
     @Autowired private ProduitRepository produitRepository;
     @Autowired private HistoriqueStockRepository historiqueStockRepository;
+    @Autowired private ApplicationEventPublisher eventPublisher;
 
     public List<Stock> getAllStocks() {
         return stockRepository.findAll();
@@ -40,11 +43,14 @@ public class StockService {
         HistoriqueStock historique = new HistoriqueStock();
         historique.setAction(isAddition? "Entréé" : "Sortie");
         historique.setQuantity(quantity);
+        historique.setStockApres(produit.getStock());
         historique.setDate(LocalDateTime.now());
         historique.setProduit(produit);
         historiqueStockRepository.save(historique);
 
-        return stockRepository.save(stock);
+        Stock saved = stockRepository.save(stock);
+        eventPublisher.publishEvent(CatalogueModifieEvent.of(productId));
+        return saved;
     }
 
     public List<HistoriqueStock> getHistoriqueStocks() {
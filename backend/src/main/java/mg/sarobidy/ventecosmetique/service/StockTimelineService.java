@@ -0,0 +1,61 @@
+package mg.sarobidy.ventecosmetique.service;
+
+import mg.sarobidy.ventecosmetique.dto.StockTimeline;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// Historique de stock d'un produit ramené à min / max / dernier niveau par intervalle, calculé en base
+// sur l'index (produit_id, date) : la réponse est bornée par la résolution, pas par le nombre de mouvements.
+@Service
+public class StockTimelineService {
+    private static final Map<String, Duration> RESOLUTIONS = Map.of(
+            "hour", Duration.ofHours(1),
+            "day", Duration.ofDays(1),
+            "week", Duration.ofDays(7),
+            "month", Duration.ofDays(31));
+    private static final long MAX_POINTS = 2000;
+
+    // Niveau après mouvement ; à défaut (lignes antérieures) la quantité enregistrée
+    private static final String NIVEAU = "COALESCE(stock_apres, quantity)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public StockTimelineService(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public StockTimeline getTimeline(Long produitId, LocalDateTime from, LocalDateTime to, String resolution) {
+        Duration pas = RESOLUTIONS.get(resolution);
+        if (pas == null) throw new IllegalArgumentException("Résolution invalide : " + resolution);
+        if (!to.isAfter(from)) throw new IllegalArgumentException("La fin doit être postérieure au début");
+        if (Duration.between(from, to).dividedBy(pas) > MAX_POINTS) {
+            throw new IllegalArgumentException("Période trop longue pour la résolution " + resolution
+                    + " (" + MAX_POINTS + " points au plus)");
+        }
+        Timestamp debut = Timestamp.valueOf(from);
+        Timestamp fin = Timestamp.valueOf(to);
+
+        List<Integer> initial = jdbcTemplate.queryForList(
+                "SELECT " + NIVEAU + " FROM historique_stocks WHERE produit_id = ? AND date < ? " +
+                "ORDER BY date DESC, id DESC LIMIT 1", Integer.class, produitId, debut);
+
+        List<StockTimeline.Point> points = jdbcTemplate.query(
+                "SELECT date_trunc(?, date) AS debut, MIN(" + NIVEAU + ") AS min, MAX(" + NIVEAU + ") AS max, " +
+                "(ARRAY_AGG(" + NIVEAU + " ORDER BY date DESC, id DESC))[1] AS dernier, COUNT(*) AS mouvements " +
+                "FROM historique_stocks WHERE produit_id = ? AND date >= ? AND date < ? GROUP BY 1 ORDER BY 1",
+                (rs, i) -> new StockTimeline.Point(rs.getTimestamp("debut").toLocalDateTime(), rs.getInt("min"),
+                        rs.getInt("max"), rs.getInt("dernier"), rs.getLong("mouvements")),
+                resolution, produitId, debut, fin);
+
+        return new StockTimeline(produitId, resolution, from, to, initial.isEmpty() ? null : initial.get(0), points);
+    }
+}
@@ -0,0 +1,167 @@
+package mg.sarobidy.ventecosmetique.service;
+
+import mg.sarobidy.ventecosmetique.entity.Produit;
+import mg.sarobidy.ventecosmetique.entity.Promotion;
+import mg.sarobidy.ventecosmetique.entity.PromotionProduit;
+import mg.sarobidy.ventecosmetique.repository.ProduitRepository;
+import mg.sarobidy.ventecosmetique.repository.PromotionProduitRepository;
+import mg.sarobidy.ventecosmetique.repository.PromotionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Prix effectif d'un produit à un instant donné. Le prix de base (Produit.prix) n'est jamais
+// modifié par les promotions : la réduction est appliquée à la lecture, à partir d'un index
+// en mémoire des promotions en cours et à venir.
+//
+// Les promotions par catégorie et par marque sont indexées sur leur clé, sans ligne par produit :
+// la réduction d'un produit est la meilleure entre sa frise, celle de sa catégorie et celle de sa marque.
+@Service
+public class TarificationService {
+    @Autowired private PromotionRepository promotionRepository;
+    @Autowired private PromotionProduitRepository promotionProduitRepository;
+    @Autowired private ProduitRepository produitRepository;
+
+    private final Map<Long, PromotionTimeline> parProduit = new ConcurrentHashMap<>();
+    private final Map<Long, PromotionTimeline> parCategorie = new ConcurrentHashMap<>();
+    private final Map<String, PromotionTimeline> parMarque = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        List<Promotion> promotions = promotionRepository.findByDateFinAfter(LocalDateTime.now());
+        Map<Long, List<PromotionTimeline.Intervalle>> produits = new HashMap<>();
+        Map<Long, List<PromotionTimeline.Intervalle>> categories = new HashMap<>();
+        Map<String, List<PromotionTimeline.Intervalle>> marques = new HashMap<>();
+        Map<Long, Promotion> listes = new HashMap<>();
+
+        for (Promotion promotion : promotions) {
+            switch (promotion.cibleEffective()) {
+                case PRODUIT -> {
+                    if (promotion.getProduit() != null) {
+                        produits.computeIfAbsent(promotion.getProduit().getId(), k -> new ArrayList<>()).add(intervalle(promotion));
+                    }
+                }
+                case CATEGORIE -> categories.computeIfAbsent(promotion.getCategorie().getId(), k -> new ArrayList<>())
+                        .add(intervalle(promotion));
+                case MARQUE -> marques.computeIfAbsent(cleMarque(promotion.getMarque()), k -> new ArrayList<>())
+                        .add(intervalle(promotion));
+                case LISTE -> listes.put(promotion.getId(), promotion);
+            }
+        }
+        if (!listes.isEmpty()) {
+            for (PromotionProduit pp : promotionProduitRepository.findByPromotionIdIn(listes.keySet())) {
+                produits.computeIfAbsent(pp.getProduitId(), k -> new ArrayList<>()).add(intervalle(listes.get(pp.getPromotionId())));
+            }
+        }
+
+        remplacer(parProduit, produits);
+        remplacer(parCategorie, categories);
+        remplacer(parMarque, marques);
+    }
+
+    private static <K> void remplacer(Map<K, PromotionTimeline> index, Map<K, List<PromotionTimeline.Intervalle>> intervalles) {
+        index.keySet().retainAll(intervalles.keySet());
+        intervalles.forEach((cle, liste) -> index.put(cle, PromotionTimeline.of(liste)));
+    }
+
+    // À appeler après toute création, suppression ou transition d'une promotion
+    public void refresh(Promotion promotion) {
+        switch (promotion.cibleEffective()) {
+            case PRODUIT -> {
+                if (promotion.getProduit() != null) refreshProduit(promotion.getProduit().getId());
+            }
+            case CATEGORIE -> refreshCategorie(promotion.getCategorie().getId());
+            case MARQUE -> refreshMarque(promotion.getMarque());
+            case LISTE -> promotionProduitRepository.findProduitIds(promotion.getId()).forEach(this::refreshProduit);
+        }
+    }
+
+    public void refreshProduit(Long produitId) {
+        mettreAJour(parProduit, produitId, promotionRepository.findForProduit(produitId, LocalDateTime.now()));
+    }
+
+    public void refreshCategorie(Long categorieId) {
+        mettreAJour(parCategorie, categorieId, promotionRepository.findForCategorie(categorieId, LocalDateTime.now()));
+    }
+
+    public void refreshMarque(String marque) {
+        mettreAJour(parMarque, cleMarque(marque), promotionRepository.findForMarque(marque, LocalDateTime.now()));
+    }
+
+    private static <K> void mettreAJour(Map<K, PromotionTimeline> index, K cle, List<Promotion> promotions) {
+        if (promotions.isEmpty()) {
+            index.remove(cle);
+        } else {
+            index.put(cle, PromotionTimeline.of(promotions.stream().map(TarificationService::intervalle).toList()));
+        }
+    }
+
+    // Produits dont le prix effectif dépend de cette promotion
+    public Set<Long> produitsConcernes(Promotion promotion) {
+        return switch (promotion.cibleEffective()) {
+            case PRODUIT -> promotion.getProduit() != null ? Set.of(promotion.getProduit().getId()) : Set.of();
+            case CATEGORIE -> new HashSet<>(produitRepository.findIdsByCategorieId(promotion.getCategorie().getId()));
+            case MARQUE -> new HashSet<>(produitRepository.findIdsByMarque(promotion.getMarque()));
+            case LISTE -> new HashSet<>(promotionProduitRepository.findProduitIds(promotion.getId()));
+        };
+    }
+
+    public double reduction(Long produitId, Long categorieId, String marque, LocalDateTime instant) {
+        long t = epoch(instant);
+        double reduction = reductionAt(parProduit.get(produitId), t);
+        if (categorieId != null) reduction = Math.max(reduction, reductionAt(parCategorie.get(categorieId), t));
+        if (marque != null) reduction = Math.max(reduction, reductionAt(parMarque.get(cleMarque(marque)), t));
+        return reduction;
+    }
+
+    public double reduction(Produit produit, LocalDateTime instant) {
+        Long categorieId = produit.getCategorie() != null ? produit.getCategorie().getId() : null;
+        return reduction(produit.getId(), categorieId, produit.getMarque(), instant);
+    }
+
+    public BigDecimal prixEffectif(Produit produit, LocalDateTime instant) {
+        return appliquer(produit.getPrix(), reduction(produit, instant));
+    }
+
+    // Prix réduit, ou null si aucune promotion n'est active à cet instant
+    public BigDecimal prixPromo(Produit produit, LocalDateTime instant) {
+        Long categorieId = produit.getCategorie() != null ? produit.getCategorie().getId() : null;
+        return prixPromo(produit.getId(), categorieId, produit.getMarque(), produit.getPrix(), instant);
+    }
+
+    public BigDecimal prixPromo(Long produitId, Long categorieId, String marque, BigDecimal prix, LocalDateTime instant) {
+        double reduction = reduction(produitId, categorieId, marque, instant);
+        return reduction > 0 ? appliquer(prix, reduction) : null;
+    }
+
+    private static double reductionAt(PromotionTimeline timeline, long instant) {
+        return timeline == null ? 0 : timeline.reductionAt(instant);
+    }
+
+    static BigDecimal appliquer(BigDecimal prixBase, double reduction) {
+        if (prixBase == null || reduction <= 0) return prixBase;
+        BigDecimal facteur = BigDecimal.ONE.subtract(BigDecimal.valueOf(reduction).movePointLeft(2));
+        return prixBase.multiply(facteur).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    static PromotionTimeline.Intervalle intervalle(Promotion promotion) {
+        return new PromotionTimeline.Intervalle(epoch(promotion.getDateDebut()), epoch(promotion.getDateFin()),
+                promotion.getReductionPourcentage());
+    }
+
+    static String cleMarque(String marque) {
+        return marque.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static long epoch(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,333 @@
+package mg.sarobidy.ventecosmetique.service;
+
+import it.unimi.dsi.fastutil.longs.Long2DoubleMap;
+import it.unimi.dsi.fastutil.longs.Long2DoubleOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import jakarta.annotation.PreDestroy;
+import mg.sarobidy.ventecosmetique.entity.Produit;
+import mg.sarobidy.ventecosmetique.event.AjoutPanierEvent;
+import mg.sarobidy.ventecosmetique.event.CommandeCreeeEvent;
+import mg.sarobidy.ventecosmetique.repository.ProduitRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+
+// Classements « meilleures ventes » et « tendances » tenus en mémoire.
+//
+// Les scores décroissent exponentiellement (demi-vie configurable) sans jamais parcourir les compteurs :
+// chaque incrément est pondéré par exp(λ·(t − origine)), ce qui revient à diviser tous les scores par le même
+// facteur au fil du temps ; l'ordre est donc inchangé et un incrément reste en O(1). L'origine est recalée
+// avant que les poids ne débordent. Les top-K par catégorie sont recalculés périodiquement par des tas bornés.
+@Service
+public class TendanceService {
+    private static final Logger log = LoggerFactory.getLogger(TendanceService.class);
+    private static final int FORMAT_INSTANTANE = 1;
+    // Au-delà, les poids sont recalés (exp(40) reste loin de la limite des double)
+    private static final double EXPOSANT_MAX = 40;
+    // Score réel en dessous duquel un produit est oublié
+    private static final double SCORE_MIN = 1e-3;
+    private static final long SANS_CATEGORIE = 0;
+
+    public enum Critere {
+        VENTES, TENDANCE
+    }
+
+    private record Classement(Long2ObjectOpenHashMap<long[]> parCategorie, long[] global) {
+        static final Classement VIDE = new Classement(new Long2ObjectOpenHashMap<>(), new long[0]);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    @Autowired private ProduitRepository produitRepository;
+
+    @Value("${app.trending.half-life:72h}")
+    private Duration demiVie;
+    @Value("${app.trending.cart-weight:0.3}")
+    private double poidsPanier;
+    @Value("${app.trending.top-k:20}")
+    private int topK;
+    @Value("${app.trending.snapshot-file:data/tendances.bin}")
+    private Path fichierInstantane;
+
+    private final Long2DoubleOpenHashMap ventes = new Long2DoubleOpenHashMap();
+    private final Long2DoubleOpenHashMap ajoutsPanier = new Long2DoubleOpenHashMap();
+    private long origine = maintenant();
+
+    private volatile Map<Critere, Classement> classements = Map.of(Critere.VENTES, Classement.VIDE,
+            Critere.TENDANCE, Classement.VIDE);
+
+    @Autowired
+    public TendanceService(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public synchronized void enregistrerVente(long produitId, int quantite) {
+        ventes.addTo(produitId, quantite * poids(maintenant()));
+    }
+
+    // Après validation uniquement : une commande annulée par un rollback ne compte pas
+    @TransactionalEventListener
+    public void onCommandeCreee(CommandeCreeeEvent event) {
+        event.lignes().forEach(ligne -> enregistrerVente(ligne.produitId(), ligne.quantite()));
+    }
+
+    @TransactionalEventListener
+    public void onAjoutPanier(AjoutPanierEvent event) {
+        enregistrerAjoutPanier(event.produitId(), event.quantite());
+    }
+
+    public synchronized void enregistrerAjoutPanier(long produitId, int quantite) {
+        ajoutsPanier.addTo(produitId, quantite * poids(maintenant()));
+    }
+
+    // Produits classés, du meilleur au moins bon ; categorieId null pour le classement global
+    public List<Produit> getClassement(Critere critere, Long categorieId, int limite) {
+        Classement classement = classements.get(critere);
+        long[] ids = categorieId == null ? classement.global()
+                : classement.parCategorie().getOrDefault(categorieId.longValue(), new long[0]);
+        int n = Math.min(limite, ids.length);
+        if (n == 0) return List.of();
+
+        List<Long> selection = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) selection.add(ids[i]);
+        Map<Long, Produit> produits = new HashMap<>();
+        for (Produit produit : produitRepository.findAllById(selection)) produits.put(produit.getId(), produit);
+        return selection.stream().map(produits::get).filter(Objects::nonNull).toList();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void demarrer() {
+        if (!chargerInstantane()) amorcer();
+        recalculer();
+    }
+
+    @Scheduled(fixedDelayString = "${app.trending.refresh-interval:60000}",
+            initialDelayString = "${app.trending.refresh-interval:60000}")
+    public void recalculer() {
+        Long2DoubleOpenHashMap scoresVentes;
+        Long2DoubleOpenHashMap scoresTendance;
+        synchronized (this) {
+            elaguer(ventes);
+            elaguer(ajoutsPanier);
+            scoresVentes = new Long2DoubleOpenHashMap(ventes);
+            scoresTendance = new Long2DoubleOpenHashMap(ventes);
+            for (Long2DoubleMap.Entry e : ajoutsPanier.long2DoubleEntrySet()) {
+                scoresTendance.addTo(e.getLongKey(), poidsPanier * e.getDoubleValue());
+            }
+        }
+
+        Long2LongOpenHashMap categories = new Long2LongOpenHashMap();
+        categories.defaultReturnValue(SANS_CATEGORIE);
+        jdbcTemplate.query("SELECT id, categorie_id FROM produits",
+                rs -> {
+                    long categorie = rs.getLong("categorie_id");
+                    categories.put(rs.getLong("id"), rs.wasNull() ? SANS_CATEGORIE : categorie);
+                });
+
+        Map<Critere, Classement> nouveaux = new EnumMap<>(Critere.class);
+        nouveaux.put(Critere.VENTES, classer(scoresVentes, categories));
+        nouveaux.put(Critere.TENDANCE, classer(scoresTendance, categories));
+        classements = nouveaux;
+    }
+
+    private Classement classer(Long2DoubleOpenHashMap scores, Long2LongOpenHashMap categories) {
+        TopK global = new TopK(topK);
+        Long2ObjectOpenHashMap<TopK> parCategorie = new Long2ObjectOpenHashMap<>();
+        for (Long2DoubleMap.Entry e : scores.long2DoubleEntrySet()) {
+            long produitId = e.getLongKey();
+            // Produit supprimé depuis
+            if (!categories.containsKey(produitId)) continue;
+            global.offrir(produitId, e.getDoubleValue());
+            long categorie = categories.get(produitId);
+            TopK tas = parCategorie.get(categorie);
+            if (tas == null) {
+                tas = new TopK(topK);
+                parCategorie.put(categorie, tas);
+            }
+            tas.offrir(produitId, e.getDoubleValue());
+        }
+        Long2ObjectOpenHashMap<long[]> resultat = new Long2ObjectOpenHashMap<>(parCategorie.size());
+        for (Long2ObjectMap.Entry<TopK> e : parCategorie.long2ObjectEntrySet()) {
+            resultat.put(e.getLongKey(), e.getValue().trier());
+        }
+        return new Classement(resultat, global.trier());
+    }
+
+    // Tas minimal borné : le plus faible des K meilleurs est en tête et cède sa place à un meilleur score
+    private static final class TopK {
+        private final long[] ids;
+        private final double[] scores;
+        private int taille;
+
+        TopK(int k) {
+            ids = new long[k];
+            scores = new double[k];
+        }
+
+        void offrir(long id, double score) {
+            if (taille < ids.length) {
+                ids[taille] = id;
+                scores[taille] = score;
+                monter(taille++);
+            } else if (ids.length > 0 && score > scores[0]) {
+                ids[0] = id;
+                scores[0] = score;
+                descendre(0);
+            }
+        }
+
+        long[] trier() {
+            Integer[] ordre = new Integer[taille];
+            for (int i = 0; i < taille; i++) ordre[i] = i;
+            Arrays.sort(ordre, (a, b) -> Double.compare(scores[b], scores[a]));
+            long[] tries = new long[taille];
+            for (int i = 0; i < taille; i++) tries[i] = ids[ordre[i]];
+            return tries;
+        }
+
+        private void monter(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (scores[parent] <= scores[i]) return;
+                echanger(i, parent);
+                i = parent;
+            }
+        }
+
+        private void descendre(int i) {
+            while (true) {
+                int gauche = 2 * i + 1;
+                int plusPetit = i;
+                if (gauche < taille && scores[gauche] < scores[plusPetit]) plusPetit = gauche;
+                if (gauche + 1 < taille && scores[gauche + 1] < scores[plusPetit]) plusPetit = gauche + 1;
+                if (plusPetit == i) return;
+                echanger(i, plusPetit);
+                i = plusPetit;
+            }
+        }
+
+        private void echanger(int a, int b) {
+            long id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+            double score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+
+    // Appelé sous verrou
+    private double poids(long instant) {
+        double exposant = lambda() * (instant - origine);
+        if (exposant > EXPOSANT_MAX) {
+            recaler(instant);
+            exposant = 0;
+        }
+        return Math.exp(exposant);
+    }
+
+    private void recaler(long instant) {
+        double facteur = Math.exp(-lambda() * (instant - origine));
+        for (Long2DoubleMap.Entry e : ventes.long2DoubleEntrySet()) e.setValue(e.getDoubleValue() * facteur);
+        for (Long2DoubleMap.Entry e : ajoutsPanier.long2DoubleEntrySet()) e.setValue(e.getDoubleValue() * facteur);
+        origine = instant;
+    }
+
+    private void elaguer(Long2DoubleOpenHashMap scores) {
+        double seuil = SCORE_MIN * Math.exp(lambda() * (maintenant() - origine));
+        scores.long2DoubleEntrySet().removeIf(e -> e.getDoubleValue() < seuil);
+    }
+
+    private double lambda() {
+        return Math.log(2) / demiVie.toSeconds();
+    }
+
+    // Sans instantané, les ventes des 30 derniers jours sont reprises des cumuls journaliers
+    private synchronized void amorcer() {
+        long debut = maintenant();
+        jdbcTemplate.query("SELECT jour, produit_id, quantite FROM ventes_jour_produit WHERE jour >= ? AND quantite > 0",
+                rs -> {
+                    long midi = rs.getDate("jour").toLocalDate().atTime(12, 0).toEpochSecond(ZoneOffset.UTC);
+                    ventes.addTo(rs.getLong("produit_id"),
+                            rs.getLong("quantite") * Math.exp(lambda() * (Math.min(midi, debut) - origine)));
+                },
+                Date.valueOf(LocalDate.now().minusDays(30)));
+        log.info("Classements amorcés depuis les cumuls de ventes : {} produit(s)", ventes.size());
+    }
+
+    @Scheduled(fixedDelayString = "${app.trending.snapshot-interval:600000}",
+            initialDelayString = "${app.trending.snapshot-interval:600000}")
+    @PreDestroy
+    public void sauvegarderInstantane() {
+        try {
+            if (fichierInstantane.getParent() != null) Files.createDirectories(fichierInstantane.getParent());
+            Path temporaire = fichierInstantane.resolveSibling(fichierInstantane.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaire)))) {
+                synchronized (this) {
+                    out.writeInt(FORMAT_INSTANTANE);
+                    out.writeLong(origine);
+                    ecrire(out, ventes);
+                    ecrire(out, ajoutsPanier);
+                }
+            }
+            Files.move(temporaire, fichierInstantane, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Impossible d'enregistrer l'instantané des classements : {}", e.getMessage());
+        }
+    }
+
+    private synchronized boolean chargerInstantane() {
+        if (!Files.isRegularFile(fichierInstantane)) return false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(fichierInstantane)))) {
+            if (in.readInt() != FORMAT_INSTANTANE) return false;
+            origine = in.readLong();
+            lire(in, ventes);
+            lire(in, ajoutsPanier);
+            log.info("Classements restaurés : {} produit(s)", ventes.size());
+            return true;
+        } catch (IOException e) {
+            log.warn("Instantané des classements illisible, reconstruction : {}", e.getMessage());
+            ventes.clear();
+            ajoutsPanier.clear();
+            origine = maintenant();
+            return false;
+        }
+    }
+
+    private static void ecrire(DataOutputStream out, Long2DoubleOpenHashMap scores) throws IOException {
+        out.writeInt(scores.size());
+        for (Long2DoubleMap.Entry e : scores.long2DoubleEntrySet()) {
+            out.writeLong(e.getLongKey());
+            out.writeDouble(e.getDoubleValue());
+        }
+    }
+
+    private static void lire(DataInputStream in, Long2DoubleOpenHashMap scores) throws IOException {
+        int taille = in.readInt();
+        scores.ensureCapacity(taille);
+        for (int i = 0; i < taille; i++) scores.put(in.readLong(), in.readDouble());
+    }
+
+    private static long maintenant() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
@@ -2,6 +2,7 @@ package mg.sarobidy.ventecosmetique.service;
 
 import mg.sarobidy.ventecosmetique.entity.User;
 import mg.sarobidy.ventecosmetique.repository.UserRepository;
+import mg.sarobidy.ventecosmetique.security.PrincipalCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -13,6 +14,7 @@ public class UserService {
     @Autowired private UserRepository userRepository;
     @Autowired
     private BCryptPasswordEncoder passwordEncoder;
+    @Autowired private PrincipalCache principalCache;
 
     public List<User> getAllUsers() {
         return userRepository.findAll();
@@ -36,7 +38,9 @@ public class UserService {
         user.setRole(userDetails.getRole());
         user.setAddress(userDetails.getAddress());
         user.setCountry(userDetails.getCountry());
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        principalCache.invalidate(id);
+        return savedUser;
     }
 
     public User updatePassword(Long id, String currentPassword, String newPassword) {
@@ -56,15 +60,18 @@ public class UserService {
         User user = getUserById(id);
         user.setBlocked(true);
         userRepository.save(user);
+        principalCache.invalidate(id);
     }
 
     public void unblockUser(Long id) {
         User user = getUserById(id);
         user.setBlocked(false);
         userRepository.save(user);
+        principalCache.invalidate(id);
     }
 
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        principalCache.invalidate(id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,191 @@
+package mg.sarobidy.ventecosmetique.service;
+
+import mg.sarobidy.ventecosmetique.entity.Commande;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Tables de cumul ventes_jour_produit et ventes_jour_categorie : chaque commande y est ajoutée
+// (ou retirée) par un upsert ensembliste, un rapport sur une période ne lit donc que jours × clés.
+@Service
+public class VenteRollupService {
+    private static final Logger log = LoggerFactory.getLogger(VenteRollupService.class);
+
+    // Prix payé de la ligne, à défaut (commandes antérieures) le prix de base du produit
+    private static final String MONTANT = "l.quantite * COALESCE(l.prix_unitaire, CAST(p.prix AS numeric))";
+
+    private static final String UPSERT_PRODUIT =
+            "INSERT INTO ventes_jour_produit (jour, produit_id, quantite, chiffre_affaires) " +
+            "SELECT CAST(c.date_commande AS date), l.produit_id, ? * SUM(l.quantite), ? * SUM(" + MONTANT + ") " +
+            "FROM lignes_commande l JOIN commandes c ON c.id = l.commande_id JOIN produits p ON p.id = l.produit_id " +
+            "WHERE c.id = ? GROUP BY 1, 2 " +
+            "ON CONFLICT (jour, produit_id) DO UPDATE SET quantite = ventes_jour_produit.quantite + EXCLUDED.quantite, " +
+            "chiffre_affaires = ventes_jour_produit.chiffre_affaires + EXCLUDED.chiffre_affaires";
+
+    private static final String UPSERT_CATEGORIE =
+            "INSERT INTO ventes_jour_categorie (jour, categorie_id, quantite, chiffre_affaires) " +
+            "SELECT CAST(c.date_commande AS date), COALESCE(p.categorie_id, 0), ? * SUM(l.quantite), ? * SUM(" + MONTANT + ") " +
+            "FROM lignes_commande l JOIN commandes c ON c.id = l.commande_id JOIN produits p ON p.id = l.produit_id " +
+            "WHERE c.id = ? GROUP BY 1, 2 " +
+            "ON CONFLICT (jour, categorie_id) DO UPDATE SET quantite = ventes_jour_categorie.quantite + EXCLUDED.quantite, " +
+            "chiffre_affaires = ventes_jour_categorie.chiffre_affaires + EXCLUDED.chiffre_affaires";
+
+    private static final String BACKFILL_PRODUIT =
+            "INSERT INTO ventes_jour_produit (jour, produit_id, quantite, chiffre_affaires) " +
+            "SELECT CAST(c.date_commande AS date), l.produit_id, SUM(l.quantite), SUM(" + MONTANT + ") " +
+            "FROM lignes_commande l JOIN commandes c ON c.id = l.commande_id JOIN produits p ON p.id = l.produit_id " +
+            "WHERE c.statut <> 'ANNULE' AND c.date_commande >= ? AND c.date_commande < ? GROUP BY 1, 2";
+
+    private static final String BACKFILL_CATEGORIE =
+            "INSERT INTO ventes_jour_categorie (jour, categorie_id, quantite, chiffre_affaires) " +
+            "SELECT CAST(c.date_commande AS date), COALESCE(p.categorie_id, 0), SUM(l.quantite), SUM(" + MONTANT + ") " +
+            "FROM lignes_commande l JOIN commandes c ON c.id = l.commande_id JOIN produits p ON p.id = l.produit_id " +
+            "WHERE c.statut <> 'ANNULE' AND c.date_commande >= ? AND c.date_commande < ? GROUP BY 1, 2";
+
+    // Verrou consultatif par mois (clé AAAAMM) : partagé entre les commandes, exclusif pour la reconstruction
+    // du mois. Une reconstruction attend les commandes en cours du mois puis les fait attendre jusqu'à sa
+    // validation : chaque commande est comptée une fois, soit par l'agrégat, soit par son upsert.
+    private static final int VERROU_MOIS = 3701;
+
+    private static final String VERROU_MOIS_COMMANDE =
+            "SELECT pg_advisory_xact_lock_shared(?, CAST(to_char(date_commande, 'YYYYMM') AS int)) FROM commandes WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.rollup.backfill.threads:4}")
+    private int backfillThreads;
+
+    @Autowired
+    public VenteRollupService(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public record Backfill(int mois, LocalDate debut, LocalDate fin, long dureeMs) {
+    }
+
+    public record LigneRapport(Long id, String nom, long quantite, BigDecimal chiffreAffaires) {
+    }
+
+    // À appeler dans la transaction qui crée la commande ou change son statut
+    public void enregistrer(Commande commande) {
+        appliquer(commande.getId(), 1);
+    }
+
+    public void retirer(Commande commande) {
+        appliquer(commande.getId(), -1);
+    }
+
+    // Une commande ne compte dans les ventes que tant qu'elle n'est pas annulée
+    public void changementStatut(Commande commande, Commande.Statut ancien, Commande.Statut nouveau) {
+        boolean comptait = ancien != Commande.Statut.ANNULE;
+        boolean compte = nouveau != Commande.Statut.ANNULE;
+        if (comptait && !compte) retirer(commande);
+        else if (!comptait && compte) enregistrer(commande);
+    }
+
+    private void appliquer(Long commandeId, int signe) {
+        jdbcTemplate.queryForList(VERROU_MOIS_COMMANDE, VERROU_MOIS, commandeId);
+        jdbcTemplate.update(UPSERT_PRODUIT, signe, signe, commandeId);
+        jdbcTemplate.update(UPSERT_CATEGORIE, signe, signe, commandeId);
+    }
+
+    // Première mise en service : les cumuls vides sont reconstruits à partir de l'historique
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialiser() {
+        Boolean vide = jdbcTemplate.queryForObject("SELECT NOT EXISTS (SELECT 1 FROM ventes_jour_produit)", Boolean.class);
+        Boolean commandes = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM commandes)", Boolean.class);
+        if (Boolean.TRUE.equals(vide) && Boolean.TRUE.equals(commandes)) {
+            rebuild();
+        }
+    }
+
+    // Reconstruction complète : un mois par tâche, chaque mois dans sa propre transaction
+    // (suppression puis réinsertion agrégée sous le verrou du mois), les mois étant traités en parallèle.
+    public Backfill rebuild() {
+        long t0 = System.currentTimeMillis();
+        Map<String, Object> bornes = jdbcTemplate.queryForMap(
+                "SELECT MIN(date_commande) AS debut, MAX(date_commande) AS fin FROM commandes");
+        if (bornes.get("debut") == null) {
+            jdbcTemplate.update("DELETE FROM ventes_jour_produit");
+            jdbcTemplate.update("DELETE FROM ventes_jour_categorie");
+            return new Backfill(0, null, null, System.currentTimeMillis() - t0);
+        }
+        LocalDate debut = ((Timestamp) bornes.get("debut")).toLocalDateTime().toLocalDate().withDayOfMonth(1);
+        LocalDate fin = ((Timestamp) bornes.get("fin")).toLocalDateTime().toLocalDate().plusDays(1);
+
+        List<LocalDate> mois = new ArrayList<>();
+        for (LocalDate m = debut; m.isBefore(fin); m = m.plusMonths(1)) mois.add(m);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, backfillThreads))) {
+            CompletableFuture.allOf(mois.stream()
+                    .map(m -> CompletableFuture.runAsync(() -> reconstruireMois(m), executor))
+                    .toArray(CompletableFuture[]::new)).join();
+        }
+        // Cumuls hors de la plage des commandes (commandes supprimées)
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM ventes_jour_produit WHERE jour < ? OR jour >= ?", Date.valueOf(debut), Date.valueOf(fin));
+            jdbcTemplate.update("DELETE FROM ventes_jour_categorie WHERE jour < ? OR jour >= ?", Date.valueOf(debut), Date.valueOf(fin));
+        });
+
+        long duree = System.currentTimeMillis() - t0;
+        log.info("Cumuls de ventes reconstruits : {} mois en {} ms", mois.size(), duree);
+        return new Backfill(mois.size(), debut, fin.minusDays(1), duree);
+    }
+
+    private void reconstruireMois(LocalDate mois) {
+        Date jourDebut = Date.valueOf(mois);
+        Date jourFin = Date.valueOf(mois.plusMonths(1));
+        Timestamp debut = Timestamp.valueOf(mois.atStartOfDay());
+        Timestamp fin = Timestamp.valueOf(mois.plusMonths(1).atStartOfDay());
+        int cle = mois.getYear() * 100 + mois.getMonthValue();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?, ?)", VERROU_MOIS, cle);
+            jdbcTemplate.update("DELETE FROM ventes_jour_produit WHERE jour >= ? AND jour < ?", jourDebut, jourFin);
+            jdbcTemplate.update("DELETE FROM ventes_jour_categorie WHERE jour >= ? AND jour < ?", jourDebut, jourFin);
+            jdbcTemplate.update(BACKFILL_PRODUIT, debut, fin);
+            jdbcTemplate.update(BACKFILL_CATEGORIE, debut, fin);
+        });
+    }
+
+    // Rapport sur une période bornée incluse, lu uniquement dans les cumuls
+    public List<LigneRapport> rapportParProduit(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(
+                "SELECT v.produit_id AS id, p.nom, SUM(v.quantite) AS quantite, SUM(v.chiffre_affaires) AS ca " +
+                "FROM ventes_jour_produit v LEFT JOIN produits p ON p.id = v.produit_id " +
+                "WHERE v.jour >= ? AND v.jour <= ? GROUP BY v.produit_id, p.nom ORDER BY ca DESC",
+                (rs, i) -> new LigneRapport(rs.getLong("id"), rs.getString("nom"), rs.getLong("quantite"),
+                        rs.getBigDecimal("ca")),
+                Date.valueOf(from), Date.valueOf(to));
+    }
+
+    public List<LigneRapport> rapportParCategorie(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(
+                "SELECT v.categorie_id AS id, c.nom, SUM(v.quantite) AS quantite, SUM(v.chiffre_affaires) AS ca " +
+                "FROM ventes_jour_categorie v LEFT JOIN categories c ON c.id = v.categorie_id " +
+                "WHERE v.jour >= ? AND v.jour <= ? GROUP BY v.categorie_id, c.nom ORDER BY ca DESC",
+                (rs, i) -> new LigneRapport(rs.getLong("id"), rs.getString("nom"), rs.getLong("quantite"),
+                        rs.getBigDecimal("ca")),
+                Date.valueOf(from), Date.valueOf(to));
+    }
+}
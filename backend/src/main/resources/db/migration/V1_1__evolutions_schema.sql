@@ -0,0 +1,71 @@
+-- Colonnes et tables ajoutées au modèle depuis le schéma initial (V1). Les bases passées par
+-- ddl-auto=update après ces ajouts les ont déjà : tout est en IF NOT EXISTS.
+
+-- Niveau de stock après chaque mouvement
+ALTER TABLE historique_stocks ADD COLUMN IF NOT EXISTS stock_apres integer;
+CREATE INDEX IF NOT EXISTS idx_historique_stocks_produit_date ON historique_stocks (produit_id, date);
+
+-- Recherche des commandes et historique par client
+CREATE INDEX IF NOT EXISTS idx_commandes_statut_date ON commandes (statut, date_commande);
+CREATE INDEX IF NOT EXISTS idx_commandes_utilisateur_date ON commandes (utilisateur_id, date_commande);
+
+-- Prix payé, figé au passage de la commande
+ALTER TABLE lignes_commande ADD COLUMN IF NOT EXISTS prix_unitaire numeric(38, 2);
+CREATE INDEX IF NOT EXISTS idx_lignes_commande_produit ON lignes_commande (produit_id);
+CREATE INDEX IF NOT EXISTS idx_lignes_commande_commande ON lignes_commande (commande_id);
+
+-- Totaux du panier tenus côté serveur, en centimes
+ALTER TABLE paniers
+    ADD COLUMN IF NOT EXISTS sous_total_centimes bigint,
+    ADD COLUMN IF NOT EXISTS remise_centimes bigint,
+    ADD COLUMN IF NOT EXISTS nombre_articles integer;
+ALTER TABLE panier_items
+    ADD COLUMN IF NOT EXISTS prix_unitaire_centimes bigint,
+    ADD COLUMN IF NOT EXISTS prix_effectif_centimes bigint;
+
+-- Promotions par catégorie, marque ou liste de produits, et leur statut
+ALTER TABLE promotions
+    ADD COLUMN IF NOT EXISTS cible varchar(255),
+    ADD COLUMN IF NOT EXISTS categorie_id bigint REFERENCES categories (id),
+    ADD COLUMN IF NOT EXISTS marque varchar(255),
+    ADD COLUMN IF NOT EXISTS statut varchar(255);
+
+CREATE TABLE IF NOT EXISTS promotion_produits (
+    promotion_id bigint NOT NULL,
+    produit_id   bigint NOT NULL,
+    PRIMARY KEY (promotion_id, produit_id)
+);
+
+-- Codes OTP par motif, avec compteur d'échecs
+ALTER TABLE verification_codes
+    ADD COLUMN IF NOT EXISTS motif varchar(255),
+    ADD COLUMN IF NOT EXISTS tentatives integer;
+
+-- Cumuls de ventes journaliers et prévisions de réapprovisionnement
+CREATE TABLE IF NOT EXISTS ventes_jour_produit (
+    jour             date   NOT NULL,
+    produit_id       bigint NOT NULL,
+    quantite         bigint NOT NULL,
+    chiffre_affaires numeric(14, 2),
+    PRIMARY KEY (jour, produit_id)
+);
+
+CREATE TABLE IF NOT EXISTS ventes_jour_categorie (
+    jour             date   NOT NULL,
+    categorie_id     bigint NOT NULL,
+    quantite         bigint NOT NULL,
+    chiffre_affaires numeric(14, 2),
+    PRIMARY KEY (jour, categorie_id)
+);
+
+CREATE TABLE IF NOT EXISTS previsions_stock (
+    produit_id          bigint PRIMARY KEY,
+    stock               integer          NOT NULL,
+    demande_journaliere double precision NOT NULL,
+    ecart_type          double precision NOT NULL,
+    jours_couverture    double precision,
+    stock_securite      integer          NOT NULL,
+    point_commande      integer          NOT NULL,
+    quantite_suggeree   integer          NOT NULL,
+    date_calcul         timestamp(6)
+);
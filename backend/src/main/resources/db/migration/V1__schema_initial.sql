@@ -0,0 +1,110 @@
+-- Schéma des bases existantes, tel que généré par hibernate.ddl-auto=update avant l'arrivée de Flyway.
+-- Ces bases sont marquées à cette version (spring.flyway.baseline-on-migrate) sans l'exécuter : les
+-- évolutions suivantes doivent donc toutes figurer dans les migrations ultérieures.
+
+CREATE TABLE users (
+    id                       bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    first_name               varchar(255),
+    last_name                varchar(255),
+    email                    varchar(255) CONSTRAINT uk_users_email UNIQUE,
+    password                 varchar(255),
+    address                  varchar(255),
+    country                  varchar(255),
+    role                     varchar(255),
+    blocked                  boolean NOT NULL,
+    reset_password           varchar(255),
+    expiration_date_password timestamp(6)
+);
+
+CREATE TABLE categories (
+    id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nom         varchar(255),
+    description varchar(255)
+);
+
+CREATE TABLE produits (
+    id              bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nom             varchar(255),
+    prix            numeric(38, 2),
+    prix_original   numeric(38, 2),
+    stock           integer NOT NULL,
+    image_path      varchar(255),
+    description     varchar(255),
+    marque          varchar(255),
+    ingredients     varchar(255),
+    date_expiration varchar(255),
+    seuil_stock_bas integer NOT NULL,
+    categorie_id    bigint REFERENCES categories (id)
+);
+
+CREATE TABLE stocks (
+    id         bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    produit_id bigint CONSTRAINT uk_stocks_produit UNIQUE REFERENCES produits (id),
+    quantite   integer NOT NULL,
+    seuil_bas  integer NOT NULL
+);
+
+CREATE TABLE historique_stocks (
+    id         bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    produit_id bigint REFERENCES produits (id),
+    action     varchar(255),
+    quantity   integer NOT NULL,
+    date       timestamp(6)
+);
+
+CREATE TABLE avis (
+    id             bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    produit_id     bigint REFERENCES produits (id),
+    utilisateur_id bigint REFERENCES users (id),
+    note           integer NOT NULL,
+    commentaire    varchar(255),
+    date_creation  timestamp(6)
+);
+
+CREATE TABLE favoris (
+    id             bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    utilisateur_id bigint NOT NULL REFERENCES users (id),
+    produit_id     bigint NOT NULL REFERENCES produits (id)
+);
+
+CREATE TABLE commandes (
+    id             bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    utilisateur_id bigint REFERENCES users (id),
+    date_commande  timestamp(6),
+    total          double precision NOT NULL,
+    statut         varchar(255)
+);
+
+CREATE TABLE lignes_commande (
+    id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    commande_id bigint REFERENCES commandes (id),
+    produit_id  bigint REFERENCES produits (id),
+    quantite    integer NOT NULL
+);
+
+CREATE TABLE paniers (
+    id             bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    utilisateur_id bigint CONSTRAINT uk_paniers_utilisateur UNIQUE REFERENCES users (id)
+);
+
+CREATE TABLE panier_items (
+    id         bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    panier_id  bigint REFERENCES paniers (id),
+    produit_id bigint REFERENCES produits (id),
+    quantite   integer NOT NULL
+);
+
+CREATE TABLE promotions (
+    id                    bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    produit_id            bigint REFERENCES produits (id),
+    reduction_pourcentage double precision NOT NULL,
+    date_debut            timestamp(6),
+    date_fin              timestamp(6)
+);
+
+CREATE TABLE verification_codes (
+    id              bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email           varchar(255),
+    code            varchar(255),
+    expiration_date timestamp(6)
+);
@@ -0,0 +1,39 @@
+-- Un index par chemin d'accès des repositories et des requêtes JDBC ; les clés primaires,
+-- les contraintes uniques (users.email, stocks.produit_id, paniers.utilisateur_id) et les index
+-- de V1 couvrent le reste. IF NOT EXISTS : certaines bases ont déjà reçu des index via ddl-auto.
+
+-- AvisRepository.findByProduitId, note moyenne de la vitrine
+CREATE INDEX IF NOT EXISTS idx_avis_produit ON avis (produit_id);
+
+-- FavoriRepository.findByUtilisateurId / findByUtilisateurIdAndProduitId
+CREATE INDEX IF NOT EXISTS idx_favoris_utilisateur_produit ON favoris (utilisateur_id, produit_id);
+
+-- PanierItemRepository.findByPanierId / findByProduitIdIn / findPanierIdsByProduitIdIn
+CREATE INDEX IF NOT EXISTS idx_panier_items_panier ON panier_items (panier_id);
+CREATE INDEX IF NOT EXISTS idx_panier_items_produit ON panier_items (produit_id);
+
+-- ProduitRepository.findByCategorieId / findIdsByCategorieId, findIdsByMarque, recherche par nom de l'import
+CREATE INDEX IF NOT EXISTS idx_produits_categorie ON produits (categorie_id);
+CREATE INDEX IF NOT EXISTS idx_produits_marque ON produits (LOWER(marque));
+CREATE INDEX IF NOT EXISTS idx_produits_nom ON produits (nom);
+
+-- PromotionRepository : par produit, catégorie, marque, et promotions non terminées (date_fin > maintenant)
+CREATE INDEX IF NOT EXISTS idx_promotions_produit ON promotions (produit_id);
+CREATE INDEX IF NOT EXISTS idx_promotions_categorie ON promotions (categorie_id);
+CREATE INDEX IF NOT EXISTS idx_promotions_marque ON promotions (LOWER(marque));
+CREATE INDEX IF NOT EXISTS idx_promotions_date_fin ON promotions (date_fin);
+
+-- PromotionRepository.findForProduit (promotions LISTE contenant le produit)
+CREATE INDEX IF NOT EXISTS idx_promotion_produits_produit ON promotion_produits (produit_id);
+
+-- VerificationCodeRepository.findForUpdate / deleteByEmailAndMotif, purge des codes expirés
+CREATE INDEX IF NOT EXISTS idx_verification_codes_email_motif ON verification_codes (email, motif);
+CREATE INDEX IF NOT EXISTS idx_verification_codes_expiration ON verification_codes (expiration_date);
+
+-- CommandeRechercheService : préfixe d'email insensible à la casse (LOWER(email) LIKE 'abc%'),
+-- que uk_users_email ne peut pas servir
+CREATE INDEX IF NOT EXISTS idx_users_email_prefixe ON users (LOWER(email) varchar_pattern_ops);
+
+-- Tableau de bord et export CSV des commandes sur une période, export de l'historique des stocks
+CREATE INDEX IF NOT EXISTS idx_commandes_date ON commandes (date_commande);
+CREATE INDEX IF NOT EXISTS idx_historique_stocks_date ON historique_stocks (date);
@@ -0,0 +1,150 @@
+package mg.sarobidy.ventecosmetique.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import mg.sarobidy.ventecosmetique.entity.Categorie;
+import mg.sarobidy.ventecosmetique.service.CategorieService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Routage lecture / écriture sur deux PostgreSQL embarqués indépendants (sans réplication) : chaque base
+// contient une catégorie qui lui est propre, ce qui montre laquelle a servi la lecture. Caches Hibernate
+// désactivés : la liste des catégories, en cache de requêtes, serait sinon relue sans atteindre aucune base.
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "management.server.port=-1",
+        "management.health.mail.enabled=false",
+        "app.trending.snapshot-file=target/test-tendances.bin",
+        "app.trending.refresh-interval=3600000",
+        "app.datasource.replica.hikari.connection-timeout=500",
+        "app.datasource.replica.retry-after=1h"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class RepliqueLectureTest {
+    // Arrêtées avec la JVM : le contexte Spring, mis en cache, peut leur survivre jusque-là
+    private static EmbeddedPostgres primaire;
+    private static EmbeddedPostgres replique;
+
+    @DynamicPropertySource
+    static void bases(DynamicPropertyRegistry registry) throws IOException {
+        if (primaire == null) {
+            primaire = EmbeddedPostgres.start();
+            replique = EmbeddedPostgres.start();
+            // La base principale est migrée par l'application, la réplique reçoit le même schéma ici
+            Flyway.configure().dataSource(replique.getPostgresDatabase()).load().migrate();
+            new JdbcTemplate(replique.getPostgresDatabase())
+                    .update("INSERT INTO categories (id, nom, description) VALUES (100, 'Réplique', 'lue sur la réplique')");
+        }
+        registry.add("spring.datasource.url", () -> primaire.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("app.datasource.replica.url", () -> replique.getJdbcUrl("postgres", "postgres"));
+    }
+
+    @MockitoBean private JavaMailSender mailSender;
+
+    @Autowired private CategorieService categorieService;
+    @Autowired private LectureInterrompue lectureInterrompue;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @BeforeAll
+    void preparer() {
+        new JdbcTemplate(primaire.getPostgresDatabase())
+                .update("INSERT INTO categories (nom, description) VALUES ('Primaire', 'lue sur la base principale')");
+    }
+
+    @Test
+    @Order(1)
+    void lectureSeuleSurLaReplique() {
+        assertEquals(List.of("Réplique"), noms(categorieService.getAllCategories()));
+    }
+
+    @Test
+    @Order(2)
+    void ecritureSurLaBasePrincipale() {
+        Categorie categorie = new Categorie();
+        categorie.setNom("Écrite");
+        categorieService.saveCategory(categorie);
+
+        assertEquals(1, compter(primaire, "Écrite"));
+        assertEquals(0, compter(replique, "Écrite"));
+    }
+
+    // Connexion à la réplique coupée par le serveur (57P01) au milieu d'une transaction en lecture seule,
+    // comme lors d'un redémarrage : la méthode est rejouée sur une nouvelle connexion
+    @Test
+    @Order(3)
+    void lectureRejoueeSiLaConnexionEstCoupee() {
+        assertEquals(List.of("Réplique"), lectureInterrompue.lire());
+        assertEquals(2, lectureInterrompue.tentatives());
+        assertEquals(1, meterRegistry.counter("app.datasource.replica.retry").count());
+    }
+
+    @Test
+    @Order(4)
+    void repliSurLaBasePrincipaleSiLaRepliqueTombe() throws IOException {
+        replique.close();
+
+        assertEquals(List.of("Primaire", "Écrite"), noms(categorieService.getAllCategories()));
+    }
+
+    private static List<String> noms(List<Categorie> categories) {
+        return categories.stream().sorted(Comparator.comparing(Categorie::getId)).map(Categorie::getNom).toList();
+    }
+
+    private static int compter(EmbeddedPostgres base, String nom) {
+        Integer n = new JdbcTemplate(base.getPostgresDatabase())
+                .queryForObject("SELECT COUNT(*) FROM categories WHERE nom = ?", Integer.class, nom);
+        return n != null ? n : 0;
+    }
+
+    // La première tentative termine sa propre connexion avant de lire
+    static class LectureInterrompue {
+        private final JdbcTemplate jdbcTemplate;
+        private final AtomicInteger tentatives = new AtomicInteger();
+
+        LectureInterrompue(DataSource dataSource) {
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+
+        @Transactional(readOnly = true)
+        public List<String> lire() {
+            if (tentatives.getAndIncrement() == 0) {
+                jdbcTemplate.queryForObject("SELECT pg_terminate_backend(pg_backend_pid())", Boolean.class);
+            }
+            return jdbcTemplate.queryForList("SELECT nom FROM categories WHERE id = 100", String.class);
+        }
+
+        public int tentatives() {
+            return tentatives.get();
+        }
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class Lectures {
+        @Bean
+        LectureInterrompue lectureInterrompue(DataSource dataSource) {
+            return new LectureInterrompue(dataSource);
+        }
+    }
+}
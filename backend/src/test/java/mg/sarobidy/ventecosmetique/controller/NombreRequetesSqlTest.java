@@ -0,0 +1,307 @@
+package mg.sarobidy.ventecosmetique.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import mg.sarobidy.ventecosmetique.security.TokenService;
+import mg.sarobidy.ventecosmetique.service.CoAchatService;
+import mg.sarobidy.ventecosmetique.service.TarificationService;
+import mg.sarobidy.ventecosmetique.service.VenteRollupService;
+import mg.sarobidy.ventecosmetique.support.CompteurSql;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Garde-fou contre les N+1 : chaque endpoint a un budget de requêtes SQL, mesuré sur le jeu de données
+// sql/jeu-de-donnees.sql dont les listes sont plus longues que les budgets. Un chargement paresseux
+// ligne par ligne (Produit.avis, Commande.lignesCommande, Panier.items...) fait donc échouer le build.
+// Les budgets incluent une petite marge ; à ne relever qu'après avoir vérifié que la hausse est voulue.
+// Caches Hibernate désactivés : des entités déjà en cache masqueraient un chargement ligne par ligne.
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "management.server.port=-1",
+        "management.health.mail.enabled=false",
+        "app.trending.snapshot-file=target/test-tendances.bin",
+        "app.trending.refresh-interval=3600000"})
+@AutoConfigureMockMvc
+@Import(CompteurSql.Configuration.class)
+@Sql(scripts = "/sql/jeu-de-donnees.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class NombreRequetesSqlTest {
+    private static final long ADMIN = 1;
+    private static final long CLIENT = 2;
+    private static final long CLIENT_SANS_PANIER = 3;
+    private static final String PERIODE = "\"dateDebut\": \"2000-01-01T00:00:00\", \"dateFin\": \"2100-01-01T00:00:00\"";
+
+    // Arrêtée avec la JVM : le contexte Spring, mis en cache, peut lui survivre jusque-là
+    private static EmbeddedPostgres postgres;
+
+    @DynamicPropertySource
+    static void base(DynamicPropertyRegistry registry) throws IOException {
+        if (postgres == null) postgres = EmbeddedPostgres.start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @MockitoBean private JavaMailSender mailSender;
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private TokenService tokenService;
+    @Autowired private VenteRollupService venteRollupService;
+    @Autowired private CoAchatService coAchatService;
+    @Autowired private TarificationService tarificationService;
+
+    // Index en mémoire reconstruits sur le jeu de données, principaux mis en cache hors mesure
+    @BeforeAll
+    void preparer() throws Exception {
+        venteRollupService.rebuild();
+        coAchatService.rebuild();
+        tarificationService.reload();
+        for (long utilisateur : new long[]{ADMIN, CLIENT, CLIENT_SANS_PANIER}) {
+            mockMvc.perform(get("/api/client/profile").header("Authorization", "Bearer " + tokenService.createToken(utilisateur)));
+        }
+    }
+
+    @ParameterizedTest(name = "GET {0} : {2} requêtes au plus")
+    @CsvSource(delimiter = '|', textBlock = """
+            /api/client/products                      | 2 | 6
+            /api/client/products/1                    | 2 | 6
+            /api/client/products/trending?critere=ventes | 2 | 8
+            /api/client/products/1/related            | 2 | 8
+            /api/client/categories                    | 2 | 8
+            /api/client/cart                          | 2 | 12
+            /api/client/cart/totals                   | 2 | 5
+            /api/client/favorites                     | 2 | 10
+            /api/client/orders                        | 2 | 12
+            /api/client/orders/1                      | 2 | 10
+            /api/client/reviews/1                     | 2 | 6
+            /api/client/promotions                    | 2 | 4
+            /api/client/profile                       | 2 | 3
+            /api/admin/dashboard                      | 1 | 10
+            /api/admin/reports/sales?from=2000-01-01&to=2100-01-01 | 1 | 3
+            /api/admin/users                          | 1 | 3
+            /api/admin/products                       | 1 | 6
+            /api/admin/categories                     | 1 | 8
+            /api/admin/orders                         | 1 | 12
+            /api/admin/orders/search?status=EN_ATTENTE | 1 | 4
+            /api/admin/orders/1                       | 1 | 10
+            /api/admin/reviews                        | 1 | 8
+            /api/admin/promotions                     | 1 | 10
+            /api/admin/stocks                         | 1 | 8
+            /api/admin/stocks/low                     | 1 | 8
+            /api/admin/stocks/forecast                | 1 | 3
+            /api/admin/historique-stock               | 1 | 10
+            /api/admin/products/1/stock-timeline      | 1 | 4
+            /api/admin/export/orders.csv              | 1 | 4
+            /api/admin/export/historique-stock.csv    | 1 | 4
+            /api/admin/export/users.csv               | 1 | 4
+            """)
+    @Order(1)
+    void lecture(String url, long utilisateur, long budget) throws Throwable {
+        verifier("GET " + url, get(url), utilisateur, budget);
+    }
+
+    @Test
+    @Order(2)
+    void ajoutAuPanierCharge() throws Throwable {
+        verifier("ajout à un panier de 25 articles", post("/api/client/cart/add").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"productId\": 30, \"quantity\": 1}"), CLIENT, 20);
+    }
+
+    @Test
+    @Order(3)
+    void ajoutAuPanierVide() throws Throwable {
+        verifier("ajout à un nouveau panier", post("/api/client/cart/add").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"productId\": 31, \"quantity\": 1}"), CLIENT_SANS_PANIER, 20);
+    }
+
+    @Test
+    @Order(4)
+    void passageDeCommande() throws Throwable {
+        verifier("passage de commande", post("/api/client/orders"), CLIENT_SANS_PANIER, 20);
+    }
+
+    @Test
+    @Order(5)
+    void changementDeStatut() throws Throwable {
+        verifier("changement de statut", put("/api/admin/orders/1/status").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\": \"EXPEDIE\"}"), ADMIN, 8);
+    }
+
+    @Test
+    @Order(6)
+    void modificationDuPanier() throws Throwable {
+        verifier("modification d'un article du panier", put("/api/client/cart/update/2").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quantity\": 3}"), CLIENT, 15);
+    }
+
+    @Test
+    @Order(7)
+    void retraitDuPanier() throws Throwable {
+        verifier("retrait d'un article du panier", delete("/api/client/cart/remove/3"), CLIENT, 15);
+    }
+
+    @Test
+    @Order(8)
+    void ajoutAuxFavoris() throws Throwable {
+        verifier("ajout aux favoris", post("/api/client/favorites/add").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"productId\": 30}"), CLIENT, 4);
+    }
+
+    @Test
+    @Order(9)
+    void retraitDesFavoris() throws Throwable {
+        verifier("retrait des favoris", delete("/api/client/favorites/remove/1"), CLIENT, 5);
+    }
+
+    @Test
+    @Order(10)
+    void depotDAvis() throws Throwable {
+        verifier("dépôt d'un avis", post("/api/client/reviews").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"productId\": 5, \"note\": 4, \"commentaire\": \"Très bien\"}"), CLIENT, 6);
+    }
+
+    @Test
+    @Order(11)
+    void annulationDeCommande() throws Throwable {
+        verifier("annulation de commande", post("/api/client/orders/2/cancel"), CLIENT, 12);
+    }
+
+    @Test
+    @Order(12)
+    void creationDeProduit() throws Throwable {
+        verifier("création de produit", multipart("/api/admin/products").file(produit("""
+                {"nom": "Produit créé", "prix": 25, "prixOriginal": 30, "stock": 50, "marque": "Marque 1", "seuilStockBas": 10}
+                """)), ADMIN, 6);
+    }
+
+    @Test
+    @Order(13)
+    void modificationDeProduit() throws Throwable {
+        verifier("modification de produit", multipart(HttpMethod.PUT, "/api/admin/products/35").file(produit("""
+                {"nom": "Produit 35", "prix": 45, "prixOriginal": 47, "stock": 100, "marque": "Marque 3", "seuilStockBas": 10}
+                """)), ADMIN, 10);
+    }
+
+    @Test
+    @Order(14)
+    void suppressionDeProduit() throws Throwable {
+        verifier("suppression de produit", delete("/api/admin/products/41"), ADMIN, 6);
+    }
+
+    @Test
+    @Order(15)
+    void gestionDesCategories() throws Throwable {
+        MvcResult creation = verifier("création de catégorie", post("/api/admin/categories").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"nom\": \"Bio\", \"description\": \"Cosmétiques bio\"}"), ADMIN, 3);
+        long id = identifiant(creation);
+        verifier("modification de catégorie", put("/api/admin/categories/" + id).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"nom\": \"Bio\", \"description\": \"Soins certifiés bio\"}"), ADMIN, 5);
+        verifier("suppression de catégorie", delete("/api/admin/categories/" + id), ADMIN, 5);
+    }
+
+    // Le produit 20 est dans le panier de 25 articles : les paniers concernés sont retarifés
+    @Test
+    @Order(16)
+    void gestionDesPromotions() throws Throwable {
+        MvcResult creation = verifier("création de promotion", post("/api/admin/promotions").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"productId\": 20, \"reductionPourcentage\": 15, " + PERIODE + "}"), ADMIN, 15);
+        verifier("suppression de promotion", delete("/api/admin/promotions/" + identifiant(creation)), ADMIN, 15);
+    }
+
+    // Sans produit associé, la promotion par marque figure aussi dans la vitrine
+    @Test
+    @Order(17)
+    void promotionParMarque() throws Throwable {
+        verifier("promotion par marque", post("/api/admin/promotions/bulk").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"cible\": \"MARQUE\", \"marque\": \"Marque 2\", \"reductionPourcentage\": 5, " + PERIODE + "}"),
+                ADMIN, 20);
+        MvcResult vitrine = verifier("vitrine des promotions", get("/api/client/promotions"), CLIENT, 4);
+        assertEquals(List.of("Marque 2"),
+                JsonPath.read(vitrine.getResponse().getContentAsString(), "$[?(@.cible == 'MARQUE')].marque"));
+    }
+
+    // Prix du produit 5 modifié : le panier qui le contient est retarifé dans la foulée
+    @Test
+    @Order(18)
+    void importDeProduits() throws Throwable {
+        MockMultipartFile fichier = new MockMultipartFile("file", "produits.csv", "text/csv", """
+                nom,marque,prix,stock,categorieId
+                Produit 5,Marque 1,20,80,2
+                Produit importé,Marque 1,30,40,1
+                """.getBytes(StandardCharsets.UTF_8));
+        verifier("import de produits", multipart("/api/admin/products/import").file(fichier), ADMIN, 16);
+    }
+
+    // Les tranches du calcul s'exécutent sur un pool dédié : seules la lecture des bornes et l'écriture sont comptées
+    @Test
+    @Order(19)
+    void calculDesPrevisions() throws Throwable {
+        verifier("calcul des prévisions", post("/api/admin/stocks/forecast/run"), ADMIN, 5);
+    }
+
+    @Test
+    @Order(20)
+    void vidageDuPanier() throws Throwable {
+        verifier("vidage d'un panier de 25 articles", delete("/api/client/cart/clear"), CLIENT, 6);
+    }
+
+    private MvcResult verifier(String libelle, MockHttpServletRequestBuilder requete, long utilisateur, long budget) throws Throwable {
+        MvcResult[] resultat = new MvcResult[1];
+        long requetes = CompteurSql.compter(() -> resultat[0] = mockMvc.perform(requete
+                        .header("Authorization", "Bearer " + tokenService.createToken(utilisateur)))
+                .andExpect(status().isOk())
+                .andReturn());
+        assertTrue(requetes <= budget, () -> libelle + " : " + requetes + " requêtes SQL pour un budget de " + budget);
+        return resultat[0];
+    }
+
+    private static MockMultipartFile produit(String json) {
+        return new MockMultipartFile("produit", "", MediaType.APPLICATION_JSON_VALUE, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long identifiant(MvcResult resultat) throws Exception {
+        return ((Number) JsonPath.read(resultat.getResponse().getContentAsString(), "$.id")).longValue();
+    }
+
+    // Exports en flux exécutés sur le thread de la requête, pour que leurs requêtes soient comptées
+    @TestConfiguration(proxyBeanMethods = false)
+    static class ExportsSynchrones implements WebMvcConfigurer {
+        @Override
+        public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+            configurer.setTaskExecutor(new TaskExecutorAdapter(new SyncTaskExecutor()));
+        }
+    }
+}
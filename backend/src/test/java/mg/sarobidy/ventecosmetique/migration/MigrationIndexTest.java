@@ -0,0 +1,123 @@
+package mg.sarobidy.ventecosmetique.migration;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Applique les migrations sur un PostgreSQL embarqué puis vérifie, par EXPLAIN, que les requêtes
+// principales passent par un index. Les parcours séquentiels sont désactivés : sur des tables vides
+// le planificateur les préférerait toujours, il n'y revient ici que si aucun index n'est utilisable.
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MigrationIndexTest {
+    private EmbeddedPostgres postgres;
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void demarrer() throws IOException, SQLException {
+        postgres = EmbeddedPostgres.start();
+        Flyway.configure().dataSource(postgres.getPostgresDatabase()).load().migrate();
+
+        Connection connection = postgres.getPostgresDatabase().getConnection();
+        dataSource = new SingleConnectionDataSource(connection, true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("SET enable_seqscan = off");
+    }
+
+    @AfterAll
+    void arreter() throws IOException {
+        if (dataSource != null) dataSource.destroy();
+        if (postgres != null) postgres.close();
+    }
+
+    @Test
+    void migrationsAppliquees() {
+        Integer versions = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM flyway_schema_history WHERE success", Integer.class);
+        assertEquals(3, versions);
+    }
+
+    // Base créée par ddl-auto avant Flyway (schéma V1 sans historique), marquée à la version 1 comme en
+    // production : elle doit recevoir les mêmes colonnes et index qu'une base migrée depuis zéro.
+    @Test
+    void baseExistanteMiseANiveau() {
+        jdbcTemplate.execute("CREATE DATABASE existante");
+        DataSource existante = postgres.getDatabase("postgres", "existante");
+        Flyway.configure().dataSource(existante).target("1").load().migrate();
+        new JdbcTemplate(existante).execute("DROP TABLE flyway_schema_history");
+
+        Flyway.configure().dataSource(existante).baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+        assertEquals(schema(jdbcTemplate), schema(new JdbcTemplate(existante)));
+    }
+
+    private static List<String> schema(JdbcTemplate base) {
+        List<String> elements = new ArrayList<>(base.queryForList(
+                "SELECT table_name || '.' || column_name || ' ' || data_type FROM information_schema.columns " +
+                "WHERE table_schema = 'public' AND table_name <> 'flyway_schema_history' ORDER BY 1", String.class));
+        elements.addAll(base.queryForList(
+                "SELECT indexname FROM pg_indexes WHERE schemaname = 'public' AND tablename <> 'flyway_schema_history' " +
+                "ORDER BY 1", String.class));
+        return elements;
+    }
+
+    static Stream<Arguments> requetes() {
+        return Stream.of(
+                Arguments.of("avis par produit", "SELECT * FROM avis WHERE produit_id = 1"),
+                Arguments.of("commandes d'un client", "SELECT * FROM commandes WHERE utilisateur_id = 1"),
+                Arguments.of("recherche par statut et période",
+                        "SELECT * FROM commandes WHERE statut = 'EN_ATTENTE' AND date_commande >= now() - interval '30 days'"),
+                Arguments.of("commandes sur une période", "SELECT * FROM commandes WHERE date_commande >= now() - interval '7 days'"),
+                Arguments.of("lignes d'une commande", "SELECT * FROM lignes_commande WHERE commande_id = 1"),
+                Arguments.of("lignes d'un produit", "SELECT * FROM lignes_commande WHERE produit_id = 1"),
+                Arguments.of("favoris d'un client", "SELECT * FROM favoris WHERE utilisateur_id = 1"),
+                Arguments.of("favori client / produit", "SELECT * FROM favoris WHERE utilisateur_id = 1 AND produit_id = 2"),
+                Arguments.of("panier d'un client", "SELECT * FROM paniers WHERE utilisateur_id = 1"),
+                Arguments.of("articles d'un panier", "SELECT * FROM panier_items WHERE panier_id = 1"),
+                Arguments.of("paniers contenant un produit", "SELECT DISTINCT panier_id FROM panier_items WHERE produit_id IN (1, 2)"),
+                Arguments.of("stock d'un produit", "SELECT * FROM stocks WHERE produit_id = 1"),
+                Arguments.of("produits d'une catégorie", "SELECT id FROM produits WHERE categorie_id = 1"),
+                Arguments.of("produits d'une marque", "SELECT id FROM produits WHERE LOWER(marque) = LOWER('Nivea')"),
+                Arguments.of("produits par nom", "SELECT id, nom, marque FROM produits WHERE nom IN ('a', 'b')"),
+                Arguments.of("promotions d'un produit", "SELECT * FROM promotions WHERE produit_id = 1"),
+                Arguments.of("promotions non terminées", "SELECT * FROM promotions WHERE date_fin > now()"),
+                Arguments.of("promotions d'une catégorie", "SELECT * FROM promotions WHERE categorie_id = 1 AND date_fin > now()"),
+                Arguments.of("promotions d'une marque", "SELECT * FROM promotions WHERE LOWER(marque) = LOWER('Nivea')"),
+                Arguments.of("listes contenant un produit", "SELECT promotion_id FROM promotion_produits WHERE produit_id = 1"),
+                Arguments.of("produits d'une liste", "SELECT produit_id FROM promotion_produits WHERE promotion_id = 1"),
+                Arguments.of("historique d'un produit",
+                        "SELECT * FROM historique_stocks WHERE produit_id = 1 AND date >= now() - interval '1 year'"),
+                Arguments.of("code OTP", "SELECT * FROM verification_codes WHERE email = 'a@b.mg' AND motif = 'INSCRIPTION'"),
+                Arguments.of("codes expirés", "SELECT id FROM verification_codes WHERE expiration_date < now()"),
+                Arguments.of("utilisateur par email", "SELECT * FROM users WHERE email = 'a@b.mg'"),
+                Arguments.of("utilisateurs par préfixe d'email",
+                        "SELECT id FROM users WHERE LOWER(email) LIKE 'jean%' ESCAPE '\\'"),
+                Arguments.of("cumuls sur une période", "SELECT * FROM ventes_jour_produit WHERE jour >= current_date - 30"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("requetes")
+    void requeteIndexee(String nom, String sql) {
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+        assertFalse(plan.contains("Seq Scan"), () -> nom + " : parcours séquentiel\n" + plan);
+        assertTrue(plan.contains("Index"), () -> nom + " : aucun index utilisé\n" + plan);
+    }
+}
@@ -0,0 +1,86 @@
+package mg.sarobidy.ventecosmetique.service;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// L'import écrit les prix en JDBC direct : les paniers qui contiennent un produit dont le prix ou la catégorie
+// change doivent être retarifés comme après une modification par l'administration.
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "management.server.port=-1",
+        "management.health.mail.enabled=false",
+        "app.trending.snapshot-file=target/test-tendances.bin",
+        "app.trending.refresh-interval=3600000"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ProduitImportPanierTest {
+    // Arrêtée avec la JVM : le contexte Spring, mis en cache, peut lui survivre jusque-là
+    private static EmbeddedPostgres postgres;
+
+    @DynamicPropertySource
+    static void base(DynamicPropertyRegistry registry) throws IOException {
+        if (postgres == null) postgres = EmbeddedPostgres.start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @MockitoBean private JavaMailSender mailSender;
+
+    @Autowired private ProduitImportService produitImportService;
+    @Autowired private TarificationService tarificationService;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void preparer() {
+        jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+        jdbcTemplate.update("INSERT INTO users (id, first_name, last_name, email, password, role, blocked) "
+                + "VALUES (1, 'Client', 'Import', 'client@test.mg', 'x', 'CLIENT', false)");
+        jdbcTemplate.update("INSERT INTO categories (id, nom, description) VALUES (1, 'Soins', 'Soins'), (2, 'Parfums', 'Parfums')");
+        jdbcTemplate.update("INSERT INTO produits (id, nom, prix, stock, marque, seuil_stock_bas, categorie_id) "
+                + "VALUES (1, 'Crème', 10, 50, 'Marque', 5, 1), (2, 'Sérum', 30, 50, 'Marque', 5, 1)");
+        // 20 % sur la catégorie 2, où l'import déplace le sérum
+        jdbcTemplate.update("INSERT INTO promotions (id, cible, categorie_id, reduction_pourcentage, date_debut, date_fin, statut) "
+                + "VALUES (1, 'CATEGORIE', 2, 20, now() - interval '1 day', now() + interval '10 days', 'ACTIVE')");
+        jdbcTemplate.update("INSERT INTO paniers (id, utilisateur_id, sous_total_centimes, remise_centimes, nombre_articles) "
+                + "VALUES (1, 1, 5000, 0, 3)");
+        jdbcTemplate.update("INSERT INTO panier_items (id, panier_id, produit_id, quantite, prix_unitaire_centimes, prix_effectif_centimes) "
+                + "VALUES (1, 1, 1, 2, 1000, 1000), (2, 1, 2, 1, 3000, 3000)");
+        tarificationService.reload();
+    }
+
+    @Test
+    void importRetarifeLesPaniers() throws IOException {
+        produitImportService.importProducts(new ByteArrayInputStream("""
+                nom,marque,prix,stock,categorieId
+                Crème,Marque,12.50,50,1
+                Sérum,Marque,30,50,2
+                """.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(Map.of("prix_unitaire_centimes", 1250L, "prix_effectif_centimes", 1250L), ligne(1));
+        assertEquals(Map.of("prix_unitaire_centimes", 3000L, "prix_effectif_centimes", 2400L), ligne(2));
+        assertEquals(Map.of("sous_total_centimes", 5500L, "remise_centimes", 600L),
+                jdbcTemplate.queryForMap("SELECT sous_total_centimes, remise_centimes FROM paniers WHERE id = 1"));
+    }
+
+    private Map<String, Object> ligne(long itemId) {
+        return jdbcTemplate.queryForMap(
+                "SELECT prix_unitaire_centimes, prix_effectif_centimes FROM panier_items WHERE id = ?", itemId);
+    }
+}
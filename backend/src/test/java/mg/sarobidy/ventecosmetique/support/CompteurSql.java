@@ -0,0 +1,45 @@
+package mg.sarobidy.ventecosmetique.support;
+
+import net.ttddyy.dsproxy.QueryCountHolder;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+
+// Compte les requêtes SQL exécutées par le thread courant, qu'elles viennent d'Hibernate ou de JdbcTemplate :
+// la DataSource de l'application est enveloppée par datasource-proxy (@Import(CompteurSql.Configuration.class)).
+// Les traitements déportés sur un autre thread (@Async, exports en flux) ne sont pas comptés.
+public final class CompteurSql {
+
+    private CompteurSql() {
+    }
+
+    public static long compter(Executable action) throws Throwable {
+        QueryCountHolder.clear();
+        action.execute();
+        long total = QueryCountHolder.getGrandTotal().getTotal();
+        QueryCountHolder.clear();
+        return total;
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    public static class Configuration {
+
+        @Bean
+        static BeanPostProcessor compteurSqlDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                        return ProxyDataSourceBuilder.create(dataSource).name(beanName).countQuery().build();
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+}
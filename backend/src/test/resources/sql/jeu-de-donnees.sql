@@ -0,0 +1,63 @@
+-- Jeu de données des tests de nombre de requêtes : chaque liste compte plus de lignes que le budget
+-- de requêtes de son endpoint, de sorte qu'une requête par ligne dépasse forcément ce budget.
+
+INSERT INTO users (id, first_name, last_name, email, password, role, blocked) VALUES
+    (1, 'Admin', 'Test', 'admin@test.mg', 'x', 'ADMIN', false),
+    (2, 'Client', 'Un', 'client1@test.mg', 'x', 'CLIENT', false),
+    (3, 'Client', 'Deux', 'client2@test.mg', 'x', 'CLIENT', false),
+    (4, 'Client', 'Trois', 'client3@test.mg', 'x', 'CLIENT', false);
+
+INSERT INTO categories (id, nom, description) VALUES
+    (1, 'Soins', 'Soins du visage'), (2, 'Maquillage', 'Maquillage'), (3, 'Parfums', 'Parfums');
+
+-- 40 produits répartis sur 3 catégories et 4 marques, un produit sur quatre sous son seuil
+INSERT INTO produits (id, nom, prix, prix_original, stock, marque, description, seuil_stock_bas, categorie_id)
+SELECT i, 'Produit ' || i, 10 + i, 12 + i, CASE WHEN i % 4 = 0 THEN 5 ELSE 100 END, 'Marque ' || (i % 4),
+       'Description ' || i, 10, 1 + i % 3
+FROM generate_series(1, 40) AS i;
+
+INSERT INTO stocks (id, produit_id, quantite, seuil_bas)
+SELECT i, i, CASE WHEN i % 4 = 0 THEN 5 ELSE 100 END, 10 FROM generate_series(1, 40) AS i;
+
+INSERT INTO historique_stocks (id, produit_id, action, quantity, date, stock_apres)
+SELECT i, 1 + i % 40, 'Entrée', 100, now() - make_interval(days => i), 100 FROM generate_series(1, 80) AS i;
+
+-- Deux avis par produit
+INSERT INTO avis (id, produit_id, utilisateur_id, note, commentaire, date_creation)
+SELECT i, 1 + (i - 1) / 2, 2 + i % 2, 1 + i % 5, 'Avis ' || i, now() - make_interval(days => i)
+FROM generate_series(1, 80) AS i;
+
+-- Dix promotions produit en cours
+INSERT INTO promotions (id, cible, produit_id, reduction_pourcentage, date_debut, date_fin, statut)
+SELECT i, 'PRODUIT', i, 10, now() - interval '1 day', now() + interval '10 days', 'ACTIVE'
+FROM generate_series(1, 10) AS i;
+
+-- 30 commandes de trois lignes pour le client 2
+INSERT INTO commandes (id, utilisateur_id, date_commande, total, statut)
+SELECT i, 2, now() - make_interval(days => i), 100, CASE WHEN i % 3 = 0 THEN 'LIVRE' ELSE 'EN_ATTENTE' END
+FROM generate_series(1, 30) AS i;
+
+INSERT INTO lignes_commande (id, commande_id, produit_id, quantite, prix_unitaire)
+SELECT i, 1 + (i - 1) / 3, 1 + i % 40, 1, 20 FROM generate_series(1, 90) AS i;
+
+-- Panier de 25 articles et 25 favoris pour le client 2
+INSERT INTO paniers (id, utilisateur_id) VALUES (1, 2);
+
+INSERT INTO panier_items (id, panier_id, produit_id, quantite, prix_unitaire_centimes, prix_effectif_centimes)
+SELECT i, 1, i, 1, (10 + i) * 100, (10 + i) * 100 FROM generate_series(1, 25) AS i;
+
+UPDATE paniers SET sous_total_centimes = (SELECT SUM(prix_unitaire_centimes) FROM panier_items WHERE panier_id = 1),
+                   remise_centimes = 0, nombre_articles = 25
+WHERE id = 1;
+
+INSERT INTO favoris (id, utilisateur_id, produit_id)
+SELECT i, 2, i FROM generate_series(1, 25) AS i;
+
+-- Produit sans stock, historique ni avis : le seul que la suppression d'un produit peut retirer
+INSERT INTO produits (id, nom, prix, prix_original, stock, marque, description, seuil_stock_bas, categorie_id)
+VALUES (41, 'Produit 41', 51, 53, 0, 'Marque 1', 'Description 41', 10, 2);
+
+-- Les ids explicites ci-dessus n'avancent pas les séquences d'identité
+SELECT setval(pg_get_serial_sequence(t, 'id'), 1000)
+FROM unnest(ARRAY['users', 'categories', 'produits', 'stocks', 'historique_stocks', 'avis', 'promotions',
+                  'commandes', 'lignes_commande', 'paniers', 'panier_items', 'favoris']) AS t;
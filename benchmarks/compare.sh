@@ -0,0 +1,21 @@
+#!/usr/bin/env bash
+# Compare deux résultats de run.sh : ./compare.sh results/abc1234.csv results/def5678.csv
+# Écart en % du second par rapport au premier (temps moyen : négatif = plus rapide).
+set -euo pipefail
+
+if [ $# -ne 2 ]; then
+  echo "usage : $0 avant.csv apres.csv" >&2
+  exit 1
+fi
+
+# Clé : benchmark + paramètres (colonnes 8 et suivantes) ; valeurs : score et erreur
+cle() {
+  tail -n +2 "$1" | tr -d '"' | awk -F, '{
+    k = $1; for (i = 8; i <= NF; i++) if ($i != "") k = k "[" $i "]";
+    printf "%s,%s,%s,%s\n", k, $5, $6, $7 }' | sort -t, -k1,1
+}
+
+printf "%-70s %14s %14s %8s %s\n" "benchmark" "avant" "après" "écart" "unité"
+join -t, -1 1 -2 1 <(cle "$1") <(cle "$2") |
+  awk -F, '{ ecart = $2 != 0 ? ($5 - $2) * 100 / $2 : 0;
+             printf "%-70s %14.3f %14.3f %+7.1f%% %s\n", $1, $2, $5, ecart, $4 }'
@@ -0,0 +1,16 @@
+#!/usr/bin/env bash
+# Lance les benchmarks JMH et écrit results/<commit>.csv (format CSV de JMH, une ligne par benchmark
+# et jeu de paramètres) ; deux fichiers se comparent avec compare.sh.
+# Les arguments supplémentaires sont transmis à JMH, par exemple : ./run.sh Serialisation -f 1
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+COMMIT="$(git -C "$ROOT" rev-parse --short HEAD)$(git -C "$ROOT" diff --quiet HEAD -- backend benchmarks || echo -dirty)"
+RESULTS="$ROOT/benchmarks/results"
+
+(cd "$ROOT/backend" && ./mvnw -q -DskipTests install)
+(cd "$ROOT/benchmarks" && mvn -q package)
+mkdir -p "$RESULTS"
+
+java -Duser.language=en -jar "$ROOT/benchmarks/target/benchmarks.jar" -rf csv -rff "$RESULTS/$COMMIT.csv" "$@"
+echo "Résultats : $RESULTS/$COMMIT.csv"
@@ -0,0 +1,32 @@
+package mg.sarobidy.ventecosmetique.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+// Coût d'une vérification de mot de passe à la connexion selon le facteur de coût BCrypt
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BcryptBenchmark {
+    @Param({"10", "12"})
+    private int cout;
+
+    private BCryptPasswordEncoder encoder;
+    private String hash;
+
+    @Setup
+    public void preparer() {
+        encoder = new BCryptPasswordEncoder(cout);
+        hash = encoder.encode("motDePasse123");
+    }
+
+    @Benchmark
+    public boolean verifier() {
+        return encoder.matches("motDePasse123", hash);
+    }
+}
@@ -0,0 +1,144 @@
+package mg.sarobidy.ventecosmetique.benchmark;
+
+import mg.sarobidy.ventecosmetique.dto.CommandeRecherche;
+import mg.sarobidy.ventecosmetique.dto.PromotionActive;
+import mg.sarobidy.ventecosmetique.entity.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Jeux de données des benchmarks, générés à partir d'une graine fixe : deux exécutions (et deux commits)
+// mesurent exactement les mêmes graphes d'objets.
+public final class Donnees {
+    public static final long GRAINE = 42;
+    public static final LocalDateTime REFERENCE = LocalDateTime.of(2025, 1, 15, 10, 0);
+
+    private static final String[] MARQUES = {"Nivea", "L'Oréal", "Garnier", "Dove", "Maybelline", "Vichy"};
+
+    private final Random random = new Random(GRAINE);
+    private final List<Categorie> categories = new ArrayList<>();
+    private final List<User> utilisateurs = new ArrayList<>();
+
+    public Donnees() {
+        for (long i = 1; i <= 8; i++) {
+            Categorie categorie = new Categorie();
+            categorie.setId(i);
+            categorie.setNom("Catégorie " + i);
+            categorie.setDescription("Description de la catégorie " + i);
+            categories.add(categorie);
+        }
+        for (long i = 1; i <= 50; i++) {
+            User user = new User();
+            user.setId(i);
+            user.setFirstName("Prénom" + i);
+            user.setLastName("Nom" + i);
+            user.setEmail("client" + i + "@exemple.mg");
+            user.setAddress(i + " rue des Benchmarks, Antananarivo");
+            user.setCountry("Madagascar");
+            user.setRole("CLIENT");
+            utilisateurs.add(user);
+        }
+    }
+
+    public List<Produit> produits(int nombre, int avisParProduit) {
+        List<Produit> produits = new ArrayList<>(nombre);
+        for (long i = 1; i <= nombre; i++) {
+            Produit produit = new Produit();
+            produit.setId(i);
+            produit.setNom("Produit " + i);
+            produit.setMarque(MARQUES[random.nextInt(MARQUES.length)]);
+            produit.setPrix(prix(5_000, 150_000));
+            produit.setPrixOriginal(produit.getPrix().add(BigDecimal.valueOf(1_000)));
+            produit.setStock(random.nextInt(200));
+            produit.setSeuilStockBas(10);
+            produit.setImagePath("/uploads/produit-" + i + ".jpg");
+            produit.setDescription("Crème hydratante, texture légère, convient à tous les types de peau. Lot " + i);
+            produit.setIngredients("Aqua, Glycerin, Cetearyl Alcohol, Parfum, Tocopherol");
+            produit.setDateExpiration("2027-12-31");
+            produit.setCategorie(categories.get(random.nextInt(categories.size())));
+            List<Avis> avis = new ArrayList<>(avisParProduit);
+            for (int j = 0; j < avisParProduit; j++) {
+                Avis a = new Avis();
+                a.setId(i * 1_000 + j);
+                a.setProduit(produit);
+                a.setUtilisateur(utilisateurs.get(random.nextInt(utilisateurs.size())));
+                a.setNote(1 + random.nextInt(5));
+                a.setCommentaire("Très bon produit, je recommande. Avis " + j);
+                a.setDateCreation(REFERENCE.minusDays(random.nextInt(365)));
+                avis.add(a);
+            }
+            produit.setAvis(avis);
+            produits.add(produit);
+        }
+        return produits;
+    }
+
+    public List<Commande> commandes(int nombre, int lignesParCommande, List<Produit> produits) {
+        List<Commande> commandes = new ArrayList<>(nombre);
+        for (long i = 1; i <= nombre; i++) {
+            Commande commande = new Commande();
+            commande.setId(i);
+            commande.setUtilisateur(utilisateurs.get(random.nextInt(utilisateurs.size())));
+            commande.setDateCommande(REFERENCE.minusHours(random.nextInt(24 * 90)));
+            commande.setStatut(Commande.Statut.values()[random.nextInt(Commande.Statut.values().length)]);
+            List<LigneCommande> lignes = new ArrayList<>(lignesParCommande);
+            BigDecimal total = BigDecimal.ZERO;
+            for (long j = 1; j <= lignesParCommande; j++) {
+                LigneCommande ligne = new LigneCommande();
+                ligne.setId(i * 100 + j);
+                ligne.setCommande(commande);
+                ligne.setProduit(produits.get(random.nextInt(produits.size())));
+                ligne.setQuantite(1 + random.nextInt(4));
+                ligne.setPrixUnitaire(ligne.getProduit().getPrix());
+                total = total.add(ligne.getPrixUnitaire().multiply(BigDecimal.valueOf(ligne.getQuantite())));
+                lignes.add(ligne);
+            }
+            commande.setLignesCommande(lignes);
+            commande.setTotal(total.doubleValue());
+            commandes.add(commande);
+        }
+        return commandes;
+    }
+
+    public Panier panier(int articles, List<Produit> produits) {
+        Panier panier = new Panier();
+        panier.setId(1L);
+        panier.setUtilisateur(utilisateurs.get(0));
+        List<PanierItem> items = new ArrayList<>(articles);
+        for (long i = 1; i <= articles; i++) {
+            Produit produit = produits.get((int) ((i - 1) % produits.size()));
+            PanierItem item = new PanierItem();
+            item.setId(i);
+            item.setPanier(panier);
+            item.setProduit(produit);
+            item.setQuantite(1 + random.nextInt(3));
+            long centimes = produit.getPrix().movePointRight(2).longValueExact();
+            item.setPrixUnitaireCentimes(centimes);
+            item.setPrixEffectifCentimes(random.nextInt(4) == 0 ? centimes * 85 / 100 : centimes);
+            items.add(item);
+        }
+        panier.setItems(items);
+        return panier;
+    }
+
+    // Projections équivalentes à celles servies par les endpoints allégés
+    public static List<PromotionActive.ProduitVitrine> vitrine(List<Produit> produits) {
+        return produits.stream().map(p -> new PromotionActive.ProduitVitrine(p.getId(), p.getNom(), p.getMarque(),
+                p.getPrix(), p.getPrixOriginal(), null, p.getImagePath(), p.getStock(), p.getCategorie().getId(),
+                p.getAvis().stream().mapToInt(Avis::getNote).average().orElse(0), p.getAvis().size())).toList();
+    }
+
+    public static List<CommandeRecherche.EnTete> entetes(List<Commande> commandes) {
+        return commandes.stream().map(c -> new CommandeRecherche.EnTete(c.getId(), c.getDateCommande(), c.getStatut(),
+                c.getTotal(), c.getUtilisateur().getId(), c.getUtilisateur().getEmail(),
+                c.getUtilisateur().getFirstName() + " " + c.getUtilisateur().getLastName(),
+                c.getLignesCommande().stream().mapToLong(LigneCommande::getQuantite).sum())).toList();
+    }
+
+    private BigDecimal prix(int min, int max) {
+        return BigDecimal.valueOf(min + random.nextInt(max - min)).setScale(2);
+    }
+}
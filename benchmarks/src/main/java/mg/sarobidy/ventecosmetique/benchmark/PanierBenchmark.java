@@ -0,0 +1,52 @@
+package mg.sarobidy.ventecosmetique.benchmark;
+
+import mg.sarobidy.ventecosmetique.entity.Panier;
+import mg.sarobidy.ventecosmetique.entity.PanierItem;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// Totaux du panier : recalcul complet sur les articles (paniers antérieurs, vérification)
+// contre la mise à jour incrémentale appliquée par PanierService à chaque mutation.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PanierBenchmark {
+    @Param({"5", "50"})
+    private int articles;
+
+    private Panier panier;
+    private PanierItem item;
+
+    @Setup
+    public void preparer() {
+        Donnees donnees = new Donnees();
+        panier = donnees.panier(articles, donnees.produits(20, 0));
+        item = panier.getItems().get(0);
+    }
+
+    @Benchmark
+    public BigDecimal recalculComplet() {
+        panier.setSousTotalCentimes(null);
+        panier.setRemiseCentimes(null);
+        panier.setNombreArticles(null);
+        for (PanierItem i : panier.getItems()) {
+            panier.appliquer(i.sousTotalCentimes(), i.remiseCentimes(), i.getQuantite());
+        }
+        return panier.getTotal();
+    }
+
+    // Ajout puis retrait d'une unité : le panier revient à son état initial à chaque invocation
+    @Benchmark
+    public BigDecimal miseAJourIncrementale() {
+        long unitaire = item.getPrixUnitaireCentimes();
+        long remise = unitaire - item.getPrixEffectifCentimes();
+        panier.appliquer(unitaire, remise, 1);
+        panier.appliquer(-unitaire, -remise, -1);
+        return panier.getTotal();
+    }
+}
@@ -0,0 +1,64 @@
+package mg.sarobidy.ventecosmetique.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import mg.sarobidy.ventecosmetique.dto.CommandeRecherche;
+import mg.sarobidy.ventecosmetique.dto.PromotionActive;
+import mg.sarobidy.ventecosmetique.entity.Commande;
+import mg.sarobidy.ventecosmetique.entity.Produit;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Coût de sérialisation JSON des graphes d'entités (produit + catégorie + avis, commande + lignes + produits)
+// comparé aux projections servies par les endpoints allégés, pour une même page de résultats.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class SerialisationBenchmark {
+    @Param({"20", "100"})
+    private int taille;
+
+    private ObjectMapper mapper;
+    private List<Produit> produits;
+    private List<PromotionActive.ProduitVitrine> vitrine;
+    private List<Commande> commandes;
+    private List<CommandeRecherche.EnTete> entetes;
+
+    @Setup
+    public void preparer() {
+        // Même configuration que le mapper de Spring Boot (modules JSR-310, dates ISO)
+        mapper = JsonMapper.builder().findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        Donnees donnees = new Donnees();
+        produits = donnees.produits(taille, 8);
+        vitrine = Donnees.vitrine(produits);
+        commandes = donnees.commandes(taille, 4, produits);
+        entetes = Donnees.entetes(commandes);
+    }
+
+    @Benchmark
+    public byte[] produitsEntites() throws Exception {
+        return mapper.writeValueAsBytes(produits);
+    }
+
+    @Benchmark
+    public byte[] produitsProjection() throws Exception {
+        return mapper.writeValueAsBytes(vitrine);
+    }
+
+    @Benchmark
+    public byte[] commandesEntites() throws Exception {
+        return mapper.writeValueAsBytes(commandes);
+    }
+
+    @Benchmark
+    public byte[] commandesProjection() throws Exception {
+        return mapper.writeValueAsBytes(entetes);
+    }
+}
@@ -0,0 +1,35 @@
+package mg.sarobidy.ventecosmetique.service;
+
+import mg.sarobidy.ventecosmetique.benchmark.Donnees;
+import mg.sarobidy.ventecosmetique.event.CommandeCreeeEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Construction du HTML de confirmation de commande (sans envoi), dans le paquet du service
+// pour accéder à buildOrderConfirmationHtml.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EmailBenchmark {
+    @Param({"3", "30"})
+    private int lignes;
+
+    private EmailService emailService;
+    private CommandeCreeeEvent commande;
+
+    @Setup
+    public void preparer() {
+        emailService = new EmailService();
+        Donnees donnees = new Donnees();
+        commande = CommandeCreeeEvent.of(donnees.commandes(1, lignes, donnees.produits(50, 0)).get(0));
+    }
+
+    @Benchmark
+    public String confirmationHtml() {
+        return emailService.buildOrderConfirmationHtml(commande, commande.prenom());
+    }
+}
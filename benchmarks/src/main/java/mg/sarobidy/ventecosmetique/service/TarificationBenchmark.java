@@ -0,0 +1,102 @@
+package mg.sarobidy.ventecosmetique.service;
+
+import mg.sarobidy.ventecosmetique.benchmark.Donnees;
+import mg.sarobidy.ventecosmetique.entity.Categorie;
+import mg.sarobidy.ventecosmetique.entity.Produit;
+import mg.sarobidy.ventecosmetique.entity.Promotion;
+import mg.sarobidy.ventecosmetique.repository.PromotionProduitRepository;
+import mg.sarobidy.ventecosmetique.repository.PromotionRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Prix promotionnel d'une page de produits, lu dans l'index en mémoire de TarificationService.
+// L'index est chargé par reload() depuis des dépôts simulés qui servent un jeu de promotions fixe.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TarificationBenchmark {
+    @Param({"100", "2000"})
+    private int promotions;
+
+    private TarificationService tarificationService;
+    private List<Produit> produits;
+    private LocalDateTime instant;
+
+    @Setup
+    public void preparer() throws Exception {
+        Donnees donnees = new Donnees();
+        produits = donnees.produits(500, 0);
+        // reload() ne garde que les promotions non terminées à l'heure courante
+        instant = LocalDateTime.now();
+
+        Random random = new Random(Donnees.GRAINE);
+        List<Promotion> jeu = new ArrayList<>(promotions);
+        for (long i = 1; i <= promotions; i++) {
+            Promotion promotion = new Promotion();
+            promotion.setId(i);
+            Produit produit = produits.get(random.nextInt(produits.size()));
+            switch (random.nextInt(10)) {
+                case 0 -> {
+                    promotion.setCible(Promotion.Cible.CATEGORIE);
+                    promotion.setCategorie(produit.getCategorie());
+                }
+                case 1 -> {
+                    promotion.setCible(Promotion.Cible.MARQUE);
+                    promotion.setMarque(produit.getMarque());
+                }
+                default -> {
+                    promotion.setCible(Promotion.Cible.PRODUIT);
+                    promotion.setProduit(produit);
+                }
+            }
+            promotion.setReductionPourcentage(5 + random.nextInt(40));
+            promotion.setDateDebut(instant.plusDays(random.nextInt(60) - 30));
+            promotion.setDateFin(promotion.getDateDebut().plusDays(1 + random.nextInt(30)));
+            if (!promotion.getDateFin().isAfter(instant)) promotion.setDateFin(instant.plusDays(1));
+            jeu.add(promotion);
+        }
+
+        tarificationService = new TarificationService();
+        injecter("promotionRepository", depot(PromotionRepository.class, jeu));
+        injecter("promotionProduitRepository", depot(PromotionProduitRepository.class, List.of()));
+        tarificationService.reload();
+    }
+
+    @Benchmark
+    public void prixPromo(Blackhole blackhole) {
+        for (Produit produit : produits) {
+            Categorie categorie = produit.getCategorie();
+            BigDecimal prix = tarificationService.prixPromo(produit.getId(), categorie.getId(), produit.getMarque(),
+                    produit.getPrix(), instant);
+            blackhole.consume(prix);
+        }
+    }
+
+    // Dépôt réduit aux méthodes appelées par reload() : toute requête de liste renvoie le jeu fourni
+    @SuppressWarnings("unchecked")
+    private static <T> T depot(Class<T> type, List<?> resultat) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, methode, args) -> {
+            if (methode.getReturnType() == List.class) return resultat;
+            if (methode.getName().equals("toString")) return type.getSimpleName();
+            throw new UnsupportedOperationException(methode.getName());
+        });
+    }
+
+    private void injecter(String champ, Object valeur) throws ReflectiveOperationException {
+        Field field = TarificationService.class.getDeclaredField(champ);
+        field.setAccessible(true);
+        field.set(tarificationService, valeur);
+    }
+}
@@ -92,13 +92,8 @@ const Header = () => {
     }
   };
 
-  const cartTotal =
-    cart?.items?.reduce(
-      (sum, item) =>
-        sum +
-        (item.produit.prix?.doubleValue || item.produit.prix) * item.quantite,
-      0
-    ) || 0;
+  // Total maintenu par le serveur (promotions déduites)
+  const cartTotal = Number(cart?.total ?? 0);
 
   return (
     <>
@@ -328,7 +323,7 @@ const Header = () => {
                               max={item.produit.stock}
                             />
                             <span className="text-rose-600">
-                              {(item.produit.prix?.doubleValue ||
+                              {(item.produit.prixPromo ??
                                 item.produit.prix) *
                                 item.quantite.toFixed(2)}{" "}
                               Ar
@@ -28,9 +28,9 @@ const Product = ({ product, viewMode }) => {
 
   const isFavorite =
     favorites?.some((fav) => fav?.produit?.id === product.id) || false;
-  const prix = product.prix?.doubleValue || product.prix;
-  const prixOriginal =
-    product.prixOriginal?.doubleValue || product.prixOriginal;
+  // prixPromo : prix effectif calculé par le serveur quand une promotion est active
+  const prix = product.prixPromo ?? product.prix;
+  const prixOriginal = product.prixPromo != null ? product.prix : 0;
 
   const categoryName =
     categories.find((cat) => cat.produits.some((p) => p.id === product.id))
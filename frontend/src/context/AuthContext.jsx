@@ -22,9 +22,10 @@ export const AuthProvider = ({ children }) => {
     setLoading(true);
     try {
       const response = await api.post("/auth/login", { email, password });
-      const { user } = response.data;
+      const { user, token } = response.data;
       setUser(user);
       localStorage.setItem("user", JSON.stringify(user));
+      localStorage.setItem("token", token);
       return user;
     } catch (err) {
       setError(err.response?.data?.error || "Erreur lors de la connexion");
@@ -55,9 +56,10 @@ export const AuthProvider = ({ children }) => {
         code,
         user: userData,
       });
-      const user = response.data;
+      const { user, token } = response.data;
       setUser(user);
       localStorage.setItem("user", JSON.stringify(user));
+      localStorage.setItem("token", token);
       return user;
     } catch (err) {
       setError(err.response?.data?.error || "Code OTP invalide");
@@ -110,6 +112,7 @@ export const AuthProvider = ({ children }) => {
       await api.post("/auth/logout", { email });
       setUser(null);
       localStorage.removeItem("user");
+      localStorage.removeItem("token");
     } catch (err) {
       setError(err.response?.data?.error || "Erreur lors de la déconnexion");
       throw err;
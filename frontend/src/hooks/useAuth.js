@@ -20,9 +20,10 @@ export const useAuth = () => {
     setLoading(true);
     try {
       const response = await api.post("/auth/login", { email, password });
-      const { user } = response.data;
+      const { user, token } = response.data;
       setUser(user);
       localStorage.setItem("user", JSON.stringify(user));
+      localStorage.setItem("token", token);
       return user;
     } catch (err) {
       setError(err.response?.data?.error || "Erreur lors de la connexion");
@@ -53,9 +54,10 @@ export const useAuth = () => {
         code,
         user: userData,
       });
-      const user = response.data;
+      const { user, token } = response.data;
       setUser(user);
       localStorage.setItem("user", JSON.stringify(user));
+      localStorage.setItem("token", token);
       return user;
     } catch (err) {
       setError(err.response?.data?.error || "Code OTP invalide");
@@ -108,6 +110,7 @@ export const useAuth = () => {
       await api.post("/auth/logout", { email });
       setUser(null);
       localStorage.removeItem("user");
+      localStorage.removeItem("token");
     } catch (err) {
       setError(err.response?.data?.error || "Erreur lors de la déconnexion");
       throw err;
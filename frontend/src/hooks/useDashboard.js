@@ -0,0 +1,31 @@
+import { useState, useCallback } from "react";
+import api from "../api/api";
+
+export const useDashboard = () => {
+  const [dashboard, setDashboard] = useState(null);
+  const [loading, setLoading] = useState(false);
+  const [error, setError] = useState(null);
+
+  // period : week | month | all ; granularity : day | week | month
+  const fetchDashboard = useCallback(async (period, granularity) => {
+    setLoading(true);
+    setError(null);
+    try {
+      const response = await api.get("/admin/dashboard", {
+        params: { period, granularity },
+      });
+      setDashboard(response.data);
+      return response.data;
+    } catch (err) {
+      setError(
+        err.response?.data ||
+          "Erreur lors de la récupération du tableau de bord"
+      );
+      throw err;
+    } finally {
+      setLoading(false);
+    }
+  }, []);
+
+  return { dashboard, loading, error, fetchDashboard };
+};
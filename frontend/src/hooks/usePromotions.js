@@ -12,8 +12,13 @@ export const usePromotions = () => {
     try {
       const url = isAdmin ? "/admin/promotions" : "/client/promotions";
       const response = await api.get(url);
-      setPromotions(response.data);
-      return response.data;
+      // Côté client, seules les promotions liées à un produit s'affichent en vitrine
+      // (les promotions de catégorie ou de marque se lisent dans le prix des produits)
+      const data = isAdmin
+        ? response.data
+        : response.data.filter((promo) => promo.produit);
+      setPromotions(data);
+      return data;
     } catch (err) {
       setError(
         err.response?.data || "Erreur lors de la récupération des promotions"
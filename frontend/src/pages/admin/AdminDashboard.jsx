@@ -12,9 +12,7 @@ import {
   Tooltip,
   Legend,
 } from "chart.js";
-import { useOrders } from "../../hooks/useOrders";
-import { useProducts } from "../../hooks/useProducts";
-import { useUsers } from "../../hooks/useUsers";
+import { useDashboard } from "../../hooks/useDashboard";
 import Loader from "../../components/Loader";
 import { Link } from "react-router-dom";
 
@@ -28,51 +26,37 @@ ChartJS.register(
   Legend
 );
 
+// Granularité de la série selon la période affichée
+const GRANULARITY = { week: "day", month: "day", all: "month" };
+
 const AdminDashboard = () => {
-  const { orders, fetchOrders, loading: ordersLoading } = useOrders();
-  const { products, fetchProducts, loading: productsLoading } = useProducts();
-  const { users, fetchUsers, loading: usersLoading } = useUsers();
+  const { dashboard, fetchDashboard, loading } = useDashboard();
   const [period, setPeriod] = useState("month");
 
   useEffect(() => {
-    fetchOrders(true); // Mode admin
-    fetchProducts(true); // Mode admin
-    fetchUsers();
-  }, [fetchOrders, fetchProducts, fetchUsers]);
-
-  const safeOrders = Array.isArray(orders) ? orders : [];
-  const safeProducts = Array.isArray(products) ? products : [];
-  const safeUsers = Array.isArray(users) ? users : [];
+    fetchDashboard(period, GRANULARITY[period]).catch(() => {});
+  }, [fetchDashboard, period]);
 
-  const totalSales = safeOrders.reduce(
-    (sum, order) => sum + (order.total || 0),
-    0
-  );
-  const pendingOrders = safeOrders.filter((o) => o.statut === "PENDING").length;
-  const lowStockProducts = safeProducts.filter(
-    (p) => (p.stock || 0) < (p.seuilStockBas || 5)
-  ).length;
-
-  const filterOrdersByPeriod = (orders, period) => {
-    const now = new Date();
-    return orders.filter((order) => {
-      const orderDate = new Date(order.dateCommande || Date.now());
-      if (period === "week") return now - orderDate <= 7 * 24 * 60 * 60 * 1000;
-      if (period === "month")
-        return now - orderDate <= 30 * 24 * 60 * 60 * 1000;
-      return true;
-    });
-  };
+  const totalSales = Number(dashboard?.ventesTotales ?? 0);
+  const pendingOrders = dashboard?.commandesEnAttente ?? 0;
+  const lowStockProducts = dashboard?.stocksBas ?? 0;
+  const activeProducts = dashboard?.produitsActifs ?? 0;
+  const popularProducts = dashboard?.produitsPopulaires ?? [];
+  const serie = dashboard?.serie ?? [];
 
-  const filteredOrders = filterOrdersByPeriod(safeOrders, period);
   const salesChartData = {
-    labels: filteredOrders
-      .map((o) => new Date(o.dateCommande).toLocaleDateString())
-      .reverse(),
+    labels: serie.map((point) =>
+      period === "all"
+        ? new Date(point.debut).toLocaleDateString(undefined, {
+            month: "short",
+            year: "numeric",
+          })
+        : new Date(point.debut).toLocaleDateString()
+    ),
     datasets: [
       {
         label: "Ventes",
-        data: filteredOrders.map((o) => o.total || 0).reverse(),
+        data: serie.map((point) => Number(point.chiffreAffaires)),
         borderColor: "#e11d48",
         backgroundColor: "rgba(225, 29, 72, 0.2)",
         fill: true,
@@ -103,7 +87,7 @@ const AdminDashboard = () => {
     visible: { opacity: 1, transition: { staggerChildren: 0.2 } },
   };
 
-  if (ordersLoading || productsLoading || usersLoading) return <Loader />;
+  if (loading && !dashboard) return <Loader />;
 
   return (
     <motion.div
@@ -149,7 +133,7 @@ const AdminDashboard = () => {
           <h2 className="text-lg font-semibold text-rose-700">
             Produits Actifs
           </h2>
-          <p className="text-3xl text-rose-600 mt-2">{safeProducts.length}</p>
+          <p className="text-3xl text-rose-600 mt-2">{activeProducts}</p>
         </motion.div>
         <motion.div
           variants={fadeIn}
@@ -189,10 +173,11 @@ const AdminDashboard = () => {
               <th className="p-4 text-rose-700 font-semibold">Produit</th>
               <th className="p-4 text-rose-700 font-semibold">Stock</th>
               <th className="p-4 text-rose-700 font-semibold">Prix</th>
+              <th className="p-4 text-rose-700 font-semibold">Vendus</th>
             </tr>
           </thead>
           <tbody>
-            {safeProducts.slice(0, 5).map((product) => (
+            {popularProducts.map((product) => (
               <motion.tr
                 key={product.id}
                 variants={fadeIn}
@@ -208,8 +193,9 @@ const AdminDashboard = () => {
                 </td>
                 <td className="p-4 text-rose-600">{product.stock || 0}</td>
                 <td className="p-4 text-rose-600">
-                  {product.prix.toFixed(2)} Ar
+                  {Number(product.prix).toFixed(2)} Ar
                 </td>
+                <td className="p-4 text-rose-600">{product.quantiteVendue}</td>
               </motion.tr>
             ))}
           </tbody>
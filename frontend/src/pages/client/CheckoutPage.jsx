@@ -92,13 +92,8 @@ const CheckoutPage = () => {
     if (orderError) toast.error(orderError);
   }, [cartError, orderError]);
 
-  const subtotal =
-    cart?.items?.reduce(
-      (sum, item) =>
-        sum +
-        (item.produit.prix?.doubleValue || item.produit.prix) * item.quantite,
-      0
-    ) || 0;
+  // Total maintenu par le serveur (promotions déduites)
+  const subtotal = Number(cart?.total ?? 0);
 
   const shippingCost =
     shippingOptions.find((opt) => opt.value === shippingMethod)?.cost || 0;
@@ -248,7 +243,7 @@ const CheckoutPage = () => {
                         </h3>
                         <p className="text-rose-600">
                           {(
-                            item.produit.prix?.doubleValue || item.produit.prix
+                            item.produit.prixPromo ?? item.produit.prix
                           ).toFixed(2)}{" "}
                           Ar
                         </p>
@@ -275,7 +270,7 @@ const CheckoutPage = () => {
                     </div>
                     <div className="flex items-center gap-4">
                       <p className="text-rose-600 font-semibold">
-                        {(item.produit.prix?.doubleValue || item.produit.prix) *
+                        {(item.produit.prixPromo ?? item.produit.prix) *
                           item.quantite.toFixed(2)}{" "}
                         Ar
                       </p>
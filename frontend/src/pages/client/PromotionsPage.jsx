@@ -42,9 +42,10 @@ const PromotionsPage = () => {
     prix: promo.produit.prix?.doubleValue || promo.produit.prix,
     prixOriginal:
       promo.produit.prixOriginal?.doubleValue || promo.produit.prixOriginal,
+    prixPromo: promo.produit.prixPromo,
     imagePath: promo.produit.imagePath,
-    avis: promo.produit.avis || [],
-    categorie: promo.produit.categorie,
+    noteMoyenne: promo.produit.noteMoyenne,
+    nombreAvis: promo.produit.nombreAvis,
     stock: promo.produit.stock,
   }));
 
@@ -0,0 +1,51 @@
+#!/usr/bin/env bash
+# Compare le débit et la latence p99 du backend entre threads plateforme et threads virtuels.
+# Prérequis : PostgreSQL local configuré comme dans backend/src/main/resources/application.properties,
+# avec des produits (PRODUCT_IDS) et des utilisateurs (USER_IDS) existants et un stock suffisant ;
+# chaque utilisateur se connecte avec EMAIL_FORMAT (%d = id) et PASSWORD.
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+DURATION="${DURATION:-60}"
+WARMUP="${WARMUP:-15}"
+USERS="${USERS:-200}"
+RPS="${RPS:-0}"
+USER_IDS="${USER_IDS:-1-20}"
+PRODUCT_IDS="${PRODUCT_IDS:-1-20}"
+EMAIL_FORMAT="${EMAIL_FORMAT:-client%d@loadtest.local}"
+PASSWORD="${PASSWORD:-loadtest}"
+RESULTS="$ROOT/loadtest/results/$(date +%Y%m%d-%H%M%S)"
+
+(cd "$ROOT/backend" && ./mvnw -q -DskipTests package)
+(cd "$ROOT/loadtest" && mvn -q compile)
+JAR="$(ls "$ROOT"/backend/target/ventecosmetique-*-exec.jar | head -1)"
+mkdir -p "$RESULTS"
+
+drive() {
+  java -cp "$ROOT/loadtest/target/classes" mg.sarobidy.ventecosmetique.loadtest.LoadDriver \
+    --users "$USERS" --rps "$RPS" --user-ids "$USER_IDS" --product-ids "$PRODUCT_IDS" \
+    --email-format "$EMAIL_FORMAT" --password "$PASSWORD" "$@"
+}
+
+for mode in platform virtual; do
+  virtual=false
+  [ "$mode" = virtual ] && virtual=true
+  VIRTUAL_THREADS=$virtual java -Djdk.tracePinnedThreads=short -jar "$JAR" > "$RESULTS/backend-$mode.log" 2>&1 &
+  pid=$!
+  trap 'kill $pid 2>/dev/null || true' EXIT
+  until curl -sf http://localhost:8080/api/client/categories > /dev/null; do sleep 1; done
+
+  drive --duration "$WARMUP" --label "$mode-warmup" --out "$RESULTS/$mode-warmup.csv" > /dev/null
+  drive --duration "$DURATION" --label "$mode" --out "$RESULTS/$mode.csv"
+
+  kill $pid && wait $pid 2>/dev/null || true
+  trap - EXIT
+done
+
+echo
+echo "endpoint                          rps(platform) rps(virtual)  p99(platform) p99(virtual)"
+join -t, -1 1 -2 1 \
+  <(tail -n +2 "$RESULTS/platform.csv" | cut -d, -f2,6,9 | sort) \
+  <(tail -n +2 "$RESULTS/virtual.csv" | cut -d, -f2,6,9 | sort) |
+  awk -F, '{ printf "%-33s %13s %12s %14s %12s\n", $1, $2, $4, $3, $5 }'
+echo "Résultats : $RESULTS"
@@ -0,0 +1,11 @@
+#!/usr/bin/env bash
+# Test de charge de bout en bout sans infrastructure : PostgreSQL embarqué et données générées,
+# serveur SMTP local, backend lancé depuis son jar. Les options sont transmises à LocalEnvironment
+# (voir son en-tête), par exemple : ./run-local.sh --users 200 --rps 400 --duration 120
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+
+(cd "$ROOT/backend" && ./mvnw -q -DskipTests package)
+cd "$ROOT/loadtest"
+mvn -q compile exec:java -Dexec.mainClass=mg.sarobidy.ventecosmetique.loadtest.LocalEnvironment -Dexec.args="$*"
@@ -0,0 +1,265 @@
+package mg.sarobidy.ventecosmetique.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Pilote de charge : N utilisateurs simulés enchaînent des parcours catalogue → panier → commande
+// pendant une durée fixe, avec un débit cible optionnel, puis écrit un rapport CSV par endpoint.
+//
+// Chaque parcours commence par la consultation du catalogue ; --mix (défaut 70,20,10) répartit les parcours
+// entre ceux qui s'arrêtent là, ceux qui ajoutent au panier et ceux qui vont jusqu'à la commande.
+//
+// Les utilisateurs (--user-ids) se connectent avec l'email --email-format (%d = id) et le mot de passe --password.
+//
+// Exemple : java LoadDriver --base-url http://localhost:8080 --users 200 --duration 60 --label virtual
+public class LoadDriver {
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final long[] userIds;
+    private final long[] productIds;
+    private final int catalogWeight;
+    private final int cartWeight;
+    private final int checkoutWeight;
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    private final AtomicLong nextSlot = new AtomicLong();
+    private final long intervalNanos;
+    private final String emailFormat;
+    private final String password;
+    private final Map<Long, String> tokens = new ConcurrentHashMap<>();
+
+    LoadDriver(Options options) {
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.baseUrl = options.get("base-url", "http://localhost:8080");
+        this.userIds = options.range("user-ids", "1-20");
+        this.productIds = options.range("product-ids", "1-20");
+        int[] mix = Arrays.stream(options.get("mix", "70,20,10").split(",")).mapToInt(Integer::parseInt).toArray();
+        this.catalogWeight = mix[0];
+        this.cartWeight = mix[1];
+        this.checkoutWeight = mix[2];
+        int rps = Integer.parseInt(options.get("rps", "0"));
+        this.intervalNanos = rps > 0 ? TimeUnit.SECONDS.toNanos(1) / rps : 0;
+        this.emailFormat = options.get("email-format", "client%d@loadtest.local");
+        this.password = options.get("password", "loadtest");
+    }
+
+    public static void main(String[] args) throws Exception {
+        run(Options.parse(args));
+    }
+
+    static void run(Options options) throws Exception {
+        int users = Integer.parseInt(options.get("users", "100"));
+        long durationSeconds = Long.parseLong(options.get("duration", "60"));
+        long seed = Long.parseLong(options.get("seed", "42"));
+        String label = options.get("label", "run");
+        Path out = Path.of(options.get("out", "results/" + label + ".csv"));
+
+        LoadDriver driver = new LoadDriver(options);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        driver.nextSlot.set(start);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int u = 0; u < users; u++) {
+                Random random = new Random(seed + u);
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        driver.runJourney(random);
+                    }
+                    return null;
+                });
+            }
+        }
+
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        driver.report(label, elapsedSeconds, out);
+    }
+
+    private void runJourney(Random random) throws InterruptedException {
+        long userId = userIds[random.nextInt(userIds.length)];
+        long productId = productIds[random.nextInt(productIds.length)];
+        int pick = random.nextInt(catalogWeight + cartWeight + checkoutWeight);
+
+        call("GET /api/client/products", get("/api/client/products"));
+        call("GET /api/client/products/{id}", get("/api/client/products/" + productId));
+        if (pick < catalogWeight) return;
+
+        String token = token(userId);
+        if (token == null) return;
+        call("POST /api/client/cart/add", authorized(post("/api/client/cart/add", cartBody(userId, productId)), token));
+        call("GET /api/client/cart", authorized(get("/api/client/cart"), token));
+        if (pick < catalogWeight + cartWeight) return;
+
+        call("POST /api/client/orders", authorized(post("/api/client/orders", ""), token));
+        // La commande ne vide pas le panier : sans cela il grossirait à chaque parcours
+        call("DELETE /api/client/cart/clear", authorized(delete("/api/client/cart/clear"), token));
+    }
+
+    // Connexion paresseuse, une seule fois par utilisateur ; le jeton est ensuite réutilisé
+    private String token(long userId) throws InterruptedException {
+        String token = tokens.get(userId);
+        if (token != null) return token;
+
+        String body = "{\"email\":\"" + String.format(emailFormat, userId) + "\",\"password\":\"" + password + "\"}";
+        EndpointStats endpointStats = stats.computeIfAbsent("POST /api/auth/login", k -> new EndpointStats());
+        long t0 = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(post("/api/auth/login", body).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            Matcher matcher = TOKEN.matcher(response.body());
+            token = response.statusCode() < 400 && matcher.find() ? matcher.group(1) : null;
+        } catch (IOException e) {
+            token = null;
+        }
+        endpointStats.record(System.nanoTime() - t0, token != null);
+        if (token != null) tokens.put(userId, token);
+        return token;
+    }
+
+    private HttpRequest.Builder authorized(HttpRequest.Builder request, String token) {
+        return request.header("Authorization", "Bearer " + token);
+    }
+
+    private String cartBody(long userId, long productId) {
+        return "{\"userId\":" + userId + ",\"productId\":" + productId + ",\"quantity\":1}";
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET();
+    }
+
+    private HttpRequest.Builder delete(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).DELETE();
+    }
+
+    private HttpRequest.Builder post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    private void call(String endpoint, HttpRequest.Builder request) throws InterruptedException {
+        pace();
+        EndpointStats endpointStats = stats.computeIfAbsent(endpoint, k -> new EndpointStats());
+        long t0 = System.nanoTime();
+        boolean ok;
+        try {
+            HttpResponse<Void> response = client.send(request.timeout(Duration.ofSeconds(30)).build(),
+                    HttpResponse.BodyHandlers.discarding());
+            ok = response.statusCode() < 400;
+        } catch (IOException e) {
+            ok = false;
+        }
+        endpointStats.record(System.nanoTime() - t0, ok);
+    }
+
+    // Débit cible : chaque requête réserve le prochain créneau libre et attend son heure.
+    private void pace() throws InterruptedException {
+        if (intervalNanos == 0) return;
+        long slot = nextSlot.getAndAdd(intervalNanos);
+        long wait = slot - System.nanoTime();
+        if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+    }
+
+    private void report(String label, double elapsedSeconds, Path out) throws IOException {
+        StringBuilder csv = new StringBuilder("label,endpoint,count,errors,error_rate,rps,p50_ms,p95_ms,p99_ms,max_ms\n");
+        System.out.printf("%n[%s] %.1f s%n", label, elapsedSeconds);
+        System.out.printf("%-32s %8s %7s %8s %8s %8s %8s %8s%n", "endpoint", "count", "err%", "rps", "p50", "p95", "p99", "max");
+        for (Map.Entry<String, EndpointStats> entry : new TreeMap<>(stats).entrySet()) {
+            EndpointStats s = entry.getValue().snapshot();
+            double rps = s.count / elapsedSeconds;
+            double errorRate = s.count == 0 ? 0 : (double) s.errors / s.count;
+            System.out.printf("%-32s %8d %6.2f%% %8.1f %8.1f %8.1f %8.1f %8.1f%n", entry.getKey(), s.count,
+                    errorRate * 100, rps, s.percentile(0.50), s.percentile(0.95), s.percentile(0.99), s.percentile(1.0));
+            csv.append(String.format(Locale.ROOT, "%s,%s,%d,%d,%.4f,%.2f,%.2f,%.2f,%.2f,%.2f%n", label, entry.getKey(),
+                    s.count, s.errors, errorRate, rps, s.percentile(0.50), s.percentile(0.95), s.percentile(0.99),
+                    s.percentile(1.0)));
+        }
+        if (out.getParent() != null) Files.createDirectories(out.getParent());
+        Files.writeString(out, csv);
+        System.out.println("Rapport : " + out.toAbsolutePath());
+    }
+
+    static final class EndpointStats {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        synchronized void record(long nanos, boolean ok) {
+            if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+            latencies[count++] = nanos;
+            if (!ok) errors++;
+        }
+
+        synchronized Snapshot snapshot() {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return new Snapshot(sorted, count, errors);
+        }
+    }
+
+    record Snapshot(long[] sorted, int count, long errors) {
+        double percentile(double p) {
+            if (count == 0) return 0;
+            int index = (int) Math.ceil(p * count) - 1;
+            return sorted[Math.max(0, Math.min(index, count - 1))] / 1e6;
+        }
+    }
+
+    record Options(Map<String, String> values) {
+        static Options parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                if (!args[i].startsWith("--")) throw new IllegalArgumentException("Option attendue : " + args[i]);
+                values.put(args[i].substring(2), args[i + 1]);
+            }
+            return new Options(values);
+        }
+
+        String get(String key, String defaultValue) {
+            return values.getOrDefault(key, defaultValue);
+        }
+
+        Options with(String key, String value) {
+            Map<String, String> copy = new HashMap<>(values);
+            copy.put(key, value);
+            return new Options(copy);
+        }
+
+        Options withDefault(String key, String value) {
+            return values.containsKey(key) ? this : with(key, value);
+        }
+
+        // "1-20" ou "3,5,8"
+        long[] range(String key, String defaultValue) {
+            String value = get(key, defaultValue);
+            if (value.contains("-")) {
+                String[] bounds = value.split("-");
+                long from = Long.parseLong(bounds[0]);
+                long to = Long.parseLong(bounds[1]);
+                long[] ids = new long[(int) (to - from + 1)];
+                for (int i = 0; i < ids.length; i++) ids[i] = from + i;
+                return ids;
+            }
+            return Arrays.stream(value.split(",")).mapToLong(Long::parseLong).toArray();
+        }
+    }
+}
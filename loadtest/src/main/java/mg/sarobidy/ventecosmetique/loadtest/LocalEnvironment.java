@@ -0,0 +1,120 @@
+package mg.sarobidy.ventecosmetique.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Banc de charge reproductible sur une seule machine : PostgreSQL embarqué migré avec les scripts Flyway
+// du backend puis rempli par SeedData, serveur SMTP local, backend lancé depuis son jar exécutable,
+// puis LoadDriver (échauffement, mesure) contre ce backend. Tout est arrêté à la fin.
+//
+// Options propres : --jar, --migrations, --app-port, --management-port, --warmup, --results, --jvm-args,
+// --seed-users, --seed-products, --seed-orders. Les autres options sont celles de LoadDriver ; --user-ids
+// et --product-ids couvrent par défaut tous les clients et produits générés.
+//
+// Exemple : ./run-local.sh --users 200 --rps 400 --duration 120
+public class LocalEnvironment {
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+
+    public static void main(String[] args) throws Exception {
+        LoadDriver.Options options = LoadDriver.Options.parse(args);
+        Path jar = options.values().containsKey("jar") ? Path.of(options.get("jar", null)) : findJar();
+        Path migrations = Path.of(options.get("migrations", "../backend/src/main/resources/db/migration"));
+        int appPort = Integer.parseInt(options.get("app-port", "8080"));
+        int managementPort = Integer.parseInt(options.get("management-port", "8081"));
+        long warmup = Long.parseLong(options.get("warmup", "15"));
+        Path results = Path.of(options.get("results", "results/local-" + System.currentTimeMillis()));
+        Files.createDirectories(results);
+
+        SeedData seed = new SeedData(options);
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+             SmtpStub smtp = new SmtpStub()) {
+            Flyway.configure().dataSource(postgres.getPostgresDatabase())
+                    .locations("filesystem:" + migrations.toAbsolutePath()).load().migrate();
+            seed.insert(postgres.getPostgresDatabase());
+
+            List<String> command = new ArrayList<>();
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            for (String arg : options.get("jvm-args", "").split(" ")) {
+                if (!arg.isBlank()) command.add(arg);
+            }
+            command.addAll(List.of("-jar", jar.toString(),
+                    "--server.port=" + appPort,
+                    "--management.server.port=" + managementPort,
+                    "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                    "--spring.datasource.username=postgres",
+                    "--spring.datasource.password=postgres",
+                    "--spring.mail.host=localhost",
+                    "--spring.mail.port=" + smtp.port(),
+                    "--spring.mail.username=",
+                    "--spring.mail.password=",
+                    "--spring.mail.properties.mail.smtp.auth=false",
+                    "--spring.mail.properties.mail.smtp.starttls.enable=false",
+                    "--spring.jpa.show-sql=false",
+                    "--logging.level.org.springframework.mail=INFO",
+                    "--logging.level.jakarta.mail=INFO",
+                    "--app.trending.snapshot-file=" + results.toAbsolutePath().resolve("tendances.bin")));
+            Process backend = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(results.resolve("backend.log").toFile())
+                    .start();
+            Thread arret = new Thread(backend::destroy);
+            Runtime.getRuntime().addShutdownHook(arret);
+            try {
+                awaitHealthy(backend, managementPort);
+
+                LoadDriver.Options driver = options
+                        .withDefault("base-url", "http://localhost:" + appPort)
+                        .withDefault("user-ids", "1-" + seed.users())
+                        .withDefault("product-ids", "1-" + seed.products());
+                String label = options.get("label", "local");
+                if (warmup > 0) {
+                    LoadDriver.run(driver.with("duration", String.valueOf(warmup)).with("label", label + "-warmup")
+                            .with("out", results.resolve(label + "-warmup.csv").toString()));
+                }
+                LoadDriver.run(driver.with("label", label).with("out", results.resolve(label + ".csv").toString()));
+                System.out.printf("Emails reçus par le serveur SMTP local : %d%n", smtp.messages());
+            } finally {
+                backend.destroy();
+                if (!backend.waitFor(30, TimeUnit.SECONDS)) backend.destroyForcibly();
+                Runtime.getRuntime().removeShutdownHook(arret);
+            }
+        }
+        System.out.println("Résultats et journal du backend : " + results.toAbsolutePath());
+    }
+
+    private static Path findJar() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of("../backend/target"))) {
+            return files.filter(p -> p.getFileName().toString().endsWith("-exec.jar")).findFirst()
+                    .orElseThrow(() -> new IllegalStateException("Jar exécutable introuvable : lancer ./mvnw package dans backend ou passer --jar"));
+        }
+    }
+
+    private static void awaitHealthy(Process backend, int managementPort) throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        HttpRequest health = HttpRequest.newBuilder(URI.create("http://localhost:" + managementPort + "/actuator/health")).build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!backend.isAlive()) throw new IllegalStateException("Le backend s'est arrêté au démarrage, voir backend.log");
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) return;
+            } catch (IOException e) {
+                // Pas encore à l'écoute
+            }
+            TimeUnit.SECONDS.sleep(1);
+        }
+        throw new IllegalStateException("Backend non disponible après " + STARTUP_TIMEOUT.toSeconds() + " s");
+    }
+}
@@ -0,0 +1,142 @@
+package mg.sarobidy.ventecosmetique.loadtest;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Jeu de données de charge, inséré par des requêtes ensemblistes dans une base fraîchement migrée :
+// catalogue (catégories, marques, produits, stocks, avis, promotions), clients et historique de commandes.
+//
+// Le générateur aléatoire de PostgreSQL est initialisé par --seed : deux exécutions avec les mêmes tailles
+// produisent la même base. Les clients ont les ids 1..users, les produits 1..products ; chaque client
+// se connecte avec client<id>@loadtest.local et le mot de passe --password.
+final class SeedData {
+    private static final String[] CATEGORIES = {"Soins visage", "Soins corps", "Maquillage teint", "Maquillage yeux",
+            "Lèvres", "Parfums", "Cheveux", "Solaires", "Hygiène", "Homme", "Bébé", "Coffrets"};
+    private static final int MARQUES = 25;
+
+    private final int users;
+    private final int products;
+    private final int orders;
+    private final double seed;
+    private final String password;
+
+    SeedData(LoadDriver.Options options) {
+        this.users = Integer.parseInt(options.get("seed-users", "500"));
+        this.products = Integer.parseInt(options.get("seed-products", "1000"));
+        this.orders = Integer.parseInt(options.get("seed-orders", "20000"));
+        // setseed attend une valeur dans [-1, 1]
+        this.seed = (Long.parseLong(options.get("seed", "42")) % 1000) / 1000.0;
+        this.password = options.get("password", "loadtest");
+    }
+
+    int users() {
+        return users;
+    }
+
+    int products() {
+        return products;
+    }
+
+    void insert(DataSource dataSource) throws SQLException {
+        long t0 = System.currentTimeMillis();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT setseed(" + seed + ")");
+            }
+
+            for (int i = 0; i < CATEGORIES.length; i++) {
+                update(connection, "INSERT INTO categories (id, nom, description) VALUES (?, ?, ?)",
+                        i + 1, CATEGORIES[i], "Rayon " + CATEGORIES[i]);
+            }
+
+            // Un mot de passe haché une fois pour tous les clients
+            update(connection,
+                    "INSERT INTO users (id, first_name, last_name, email, password, address, country, role, blocked) " +
+                    "SELECT i, 'Client', 'N' || i, 'client' || i || '@loadtest.local', ?, i || ' rue de la Charge', " +
+                    "'Madagascar', 'CLIENT', false FROM generate_series(1, ?) AS i",
+                    new BCryptPasswordEncoder().encode(password), users);
+
+            // Prix entre 5 000 et 150 000 Ar ; stock large pour que les parcours ne s'arrêtent pas en rupture
+            update(connection,
+                    "INSERT INTO produits (id, nom, prix, prix_original, stock, image_path, description, marque, " +
+                    "ingredients, date_expiration, seuil_stock_bas, categorie_id) " +
+                    "SELECT i, 'Produit ' || i, p, p + 1000, 1000000, '/uploads/produit-' || i || '.jpg', " +
+                    "'Description du produit ' || i, 'Marque ' || (1 + floor(random() * ?)::int), " +
+                    "'Aqua, Glycerin, Parfum', '2028-12-31', 20, 1 + floor(random() * ?)::int " +
+                    "FROM (SELECT i, round((5000 + random() * 145000)::numeric, -2) AS p " +
+                    "FROM generate_series(1, ?) AS i) AS s",
+                    MARQUES, CATEGORIES.length, products);
+
+            update(connection, "INSERT INTO stocks (produit_id, quantite, seuil_bas) SELECT id, stock, seuil_stock_bas FROM produits");
+
+            // Avis : de 0 à 10 par produit, notes biaisées vers le haut. La série référence la ligne externe
+            // (0 * p.id) pour être réévaluée à chaque produit plutôt qu'une seule fois.
+            update(connection,
+                    "INSERT INTO avis (produit_id, utilisateur_id, note, commentaire, date_creation) " +
+                    "SELECT p.id, 1 + floor(random() * ?)::int, 5 - floor(random() * random() * 5)::int, " +
+                    "'Avis sur le produit ' || p.id, now() - random() * interval '365 days' " +
+                    "FROM produits p CROSS JOIN LATERAL generate_series(1, floor(random() * 11)::int + 0 * p.id)",
+                    users);
+
+            // Promotions en cours : 5 % des produits, deux catégories et deux marques
+            update(connection,
+                    "INSERT INTO promotions (cible, produit_id, reduction_pourcentage, date_debut, date_fin, statut) " +
+                    "SELECT 'PRODUIT', id, 5 * (1 + floor(random() * 8)), now() - interval '2 days', " +
+                    "now() + interval '30 days', 'ACTIVE' FROM produits WHERE random() < 0.05");
+            update(connection,
+                    "INSERT INTO promotions (cible, categorie_id, reduction_pourcentage, date_debut, date_fin, statut) " +
+                    "VALUES ('CATEGORIE', 1, 10, now() - interval '1 day', now() + interval '30 days', 'ACTIVE'), " +
+                    "('CATEGORIE', 6, 15, now() - interval '1 day', now() + interval '30 days', 'ACTIVE')");
+            update(connection,
+                    "INSERT INTO promotions (cible, marque, reduction_pourcentage, date_debut, date_fin, statut) " +
+                    "VALUES ('MARQUE', 'Marque 1', 20, now() - interval '1 day', now() + interval '30 days', 'ACTIVE'), " +
+                    "('MARQUE', 'Marque 2', 10, now() - interval '1 day', now() + interval '30 days', 'ACTIVE')");
+
+            // Historique d'un an : 1 à 5 lignes par commande, quelques produits populaires très demandés
+            update(connection,
+                    "INSERT INTO commandes (id, utilisateur_id, date_commande, total, statut) " +
+                    "SELECT i, 1 + floor(random() * ?)::int, now() - random() * interval '365 days', 0, " +
+                    "(ARRAY['EN_ATTENTE', 'EXPEDIE', 'LIVRE', 'LIVRE', 'LIVRE', 'ANNULE'])[1 + floor(random() * 6)::int] " +
+                    "FROM generate_series(1, ?) AS i",
+                    users, orders);
+            update(connection,
+                    "INSERT INTO lignes_commande (commande_id, produit_id, quantite, prix_unitaire) " +
+                    "SELECT c.id, l.produit_id, 1 + floor(random() * 3)::int, p.prix " +
+                    "FROM commandes c " +
+                    "CROSS JOIN LATERAL (SELECT DISTINCT 1 + floor(power(random(), 2) * ?)::int + 0 * c.id AS produit_id " +
+                    "FROM generate_series(1, 1 + floor(random() * 5)::int)) AS l " +
+                    "JOIN produits p ON p.id = l.produit_id",
+                    products);
+            update(connection,
+                    "UPDATE commandes c SET total = s.total FROM (SELECT commande_id, SUM(quantite * prix_unitaire) AS total " +
+                    "FROM lignes_commande GROUP BY commande_id) AS s WHERE s.commande_id = c.id");
+
+            // Les ids explicites n'avancent pas les séquences d'identité
+            for (String table : new String[]{"categories", "users", "produits", "commandes"}) {
+                update(connection, "SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), " +
+                        "(SELECT MAX(id) FROM " + table + "))");
+            }
+            connection.commit();
+
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("VACUUM ANALYZE");
+            }
+        }
+        System.out.printf("Données de charge : %d clients, %d produits, %d commandes en %d ms%n",
+                users, products, orders, System.currentTimeMillis() - t0);
+    }
+
+    private static void update(Connection connection, String sql, Object... params) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) statement.setObject(i + 1, params[i]);
+            statement.execute();
+        }
+    }
+}